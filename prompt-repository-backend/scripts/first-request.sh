@@ -0,0 +1,70 @@
+#!/bin/bash
+
+# Measures the time from launching the jar to the first successful catalogue responses, with and
+# without a catalogue snapshot on disk, and with the database stopped. Requires the database from
+# podman/container.sh for the runs that build the snapshot.
+#
+# Usage: ./scripts/first-request.sh
+
+set -e
+
+SCRIPT_DIR="$( cd "$( dirname "${BASH_SOURCE[0]}" )" && pwd )"
+PROJECT_DIR="$( dirname "$SCRIPT_DIR" )"
+PORT=${PORT:-8081}
+BASE_URL="http://localhost:$PORT/api"
+SNAPSHOT=${CATALOGUE_SNAPSHOT_PATH:-data/catalogue-snapshot.bin}
+ENDPOINTS=("/prompts?page=0&size=20" "/categories")
+# Nothing listens here, so connections fail fast as they would with the database stopped
+DOWN_DB_URL="jdbc:postgresql://localhost:1/promptrepo?connectTimeout=1"
+TIMEOUT_MS=${TIMEOUT_MS:-60000}
+
+cd "$PROJECT_DIR"
+./gradlew -q bootJar
+JAR=$(ls build/libs/*.jar | grep -v plain | head -n 1)
+
+now_ms() {
+    date +%s%3N
+}
+
+# Starts the jar with the given environment and prints the milliseconds until each endpoint answers 200,
+# or none if it does not within TIMEOUT_MS (no snapshot and no database)
+run_mode() {
+    local label=$1
+    shift
+
+    local start=$(now_ms)
+    env "$@" java -jar "$JAR" > "build/first-request-$label.log" 2>&1 &
+    local pid=$!
+    trap "kill $pid 2> /dev/null" EXIT
+
+    for endpoint in "${ENDPOINTS[@]}"; do
+        until curl -sf -o /dev/null "$BASE_URL$endpoint"; do
+            if ! kill -0 $pid 2> /dev/null || [ $(( $(now_ms) - start )) -gt $TIMEOUT_MS ]; then
+                printf "%-22s %-28s %12s\n" "$label" "$endpoint" "none"
+                continue 2
+            fi
+            sleep 0.05
+        done
+        printf "%-22s %-28s %12s\n" "$label" "$endpoint" "$(( $(now_ms) - start ))"
+    done
+
+    kill $pid 2> /dev/null || true
+    wait $pid 2> /dev/null || true
+    trap - EXIT
+}
+
+printf "%-22s %-28s %12s\n" "mode" "endpoint" "first 200 (ms)"
+
+# Without a snapshot the first listing needs the database; the run leaves a snapshot behind on shutdown
+rm -f "$SNAPSHOT"
+run_mode no-snapshot
+if [ ! -f "$SNAPSHOT" ]; then
+    echo "No snapshot was saved on shutdown; the first refresh took longer than the shutdown grace period"
+    exit 1
+fi
+run_mode snapshot
+run_mode snapshot-database-down DB_URL="$DOWN_DB_URL" DDL_AUTO=none
+
+mv "$SNAPSHOT" "$SNAPSHOT.bak"
+run_mode no-snapshot-db-down DB_URL="$DOWN_DB_URL" DDL_AUTO=none
+mv "$SNAPSHOT.bak" "$SNAPSHOT"
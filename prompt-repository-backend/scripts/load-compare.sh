@@ -0,0 +1,63 @@
+#!/bin/bash
+
+# Compares throughput and tail latency of the default platform-thread mode against the
+# virtual-threads profile. Requires Java 21+, the database from podman/container.sh and `hey`
+# (https://github.com/rakyll/hey).
+#
+# Usage: ./scripts/load-compare.sh [concurrency] [duration]
+
+set -e
+
+SCRIPT_DIR="$( cd "$( dirname "${BASH_SOURCE[0]}" )" && pwd )"
+PROJECT_DIR="$( dirname "$SCRIPT_DIR" )"
+CONCURRENCY=${1:-1000}
+DURATION=${2:-30s}
+PORT=${PORT:-8081}
+BASE_URL="http://localhost:$PORT/api"
+ENDPOINTS=("/prompts?page=0&size=20" "/categories")
+
+if ! command -v hey &> /dev/null; then
+    echo "hey is required: go install github.com/rakyll/hey@latest"
+    exit 1
+fi
+
+if [ "$(java -XshowSettings:properties -version 2>&1 | awk -F'= ' '/java.specification.version/ {print $2}')" -lt 21 ]; then
+    echo "Java 21 or newer is required for the virtual-threads profile"
+    exit 1
+fi
+
+cd "$PROJECT_DIR"
+./gradlew -q bootJar
+JAR=$(ls build/libs/*.jar | grep -v plain | head -n 1)
+
+run_mode() {
+    local label=$1
+    local profiles=$2
+
+    # One client hammering one endpoint would only measure the admission limits
+    ADMISSION_CONTROL_ENABLED=false SPRING_PROFILES_ACTIVE=$profiles java -jar "$JAR" > "build/load-$label.log" 2>&1 &
+    local pid=$!
+    trap "kill $pid 2> /dev/null" EXIT
+
+    until curl -sf "$BASE_URL/health" > /dev/null; do
+        sleep 1
+    done
+
+    for endpoint in "${ENDPOINTS[@]}"; do
+        # Warm up JIT, caches and the connection pool before measuring
+        hey -z 5s -c 50 "$BASE_URL$endpoint" > /dev/null
+        local report=$(hey -z "$DURATION" -c "$CONCURRENCY" "$BASE_URL$endpoint")
+        local rps=$(echo "$report" | awk '/Requests\/sec/ {print $2}')
+        local p99=$(echo "$report" | awk '/99% in/ {print $3}')
+        local errors=$(echo "$report" | awk '/Error distribution/ {found=1} found && /\[/ {sum+=$1} END {print sum+0}')
+        printf "%-10s %-28s %12s %12s %8s\n" "$label" "$endpoint" "$rps" "$p99" "$errors"
+    done
+
+    kill $pid
+    wait $pid 2> /dev/null || true
+    trap - EXIT
+}
+
+printf "%-10s %-28s %12s %12s %8s\n" "mode" "endpoint" "req/s" "p99 (s)" "errors"
+run_mode platform ""
+run_mode virtual virtual-threads
@@ -0,0 +1,22 @@
+-- Adds the denormalised per-category prompt count and fills it from prompt_categories.
+-- Afterwards it is kept up to date by the service and rebuilt from prompt_categories on startup.
+--
+-- Run once before deploying the version with persisted category counts (needed with ddl-auto=validate):
+--   psql "$DB_URL" -f scripts/migrate-category-prompt-counts.sql
+
+BEGIN;
+
+ALTER TABLE categories ADD COLUMN IF NOT EXISTS prompt_count integer NOT NULL DEFAULT 0;
+
+UPDATE categories c
+SET prompt_count = counts.total
+FROM (
+    SELECT category_id, COUNT(*) AS total
+    FROM prompt_categories
+    GROUP BY category_id
+) counts
+WHERE c.id = counts.category_id;
+
+COMMIT;
+
+ANALYZE categories;
@@ -0,0 +1,17 @@
+-- Creates the prompt change feed behind /api/prompts/changes and the ETag version.
+-- Prompts that exist before it have no change rows; clients start from a full listing as usual.
+--
+-- Run once before deploying the version with the change feed (needed with ddl-auto=validate):
+--   psql "$DB_URL" -f scripts/migrate-prompt-changes.sql
+-- prompt_id takes the type of prompts.id at that point; scripts/migrate-uuid-ids.sql converts it later.
+
+BEGIN;
+
+CREATE TABLE IF NOT EXISTS prompt_changes (
+    id bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    prompt_id varchar(255) NOT NULL,
+    type varchar(255) NOT NULL CHECK (type IN ('CREATED', 'UPDATED', 'DELETED')),
+    changed_at timestamp(6) NOT NULL
+);
+
+COMMIT;
@@ -0,0 +1,30 @@
+-- Creates revision history and the content-addressed store it points into.
+-- Prompts that exist before it get their first revision on their next update.
+--
+-- Run once before deploying the version with prompt revisions (needed with ddl-auto=validate):
+--   psql "$DB_URL" -f scripts/migrate-prompt-revisions.sql
+-- prompt_id takes the type of prompts.id at that point; scripts/migrate-uuid-ids.sql converts it later.
+
+BEGIN;
+
+CREATE TABLE IF NOT EXISTS prompt_contents (
+    hash varchar(64) PRIMARY KEY,
+    base_hash varchar(64),
+    encoding varchar(255) NOT NULL CHECK (encoding IN ('FULL', 'DELTA')),
+    depth integer NOT NULL,
+    length integer NOT NULL,
+    data bytea NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS prompt_revisions (
+    id bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    prompt_id varchar(255) NOT NULL,
+    revision integer NOT NULL,
+    title varchar(255) NOT NULL,
+    description text,
+    content_hash varchar(64) NOT NULL,
+    created_at timestamp(6) NOT NULL,
+    CONSTRAINT uk_prompt_revisions_prompt_revision UNIQUE (prompt_id, revision)
+);
+
+COMMIT;
@@ -0,0 +1,8 @@
+-- Indexes prompt_tags by tag for the tag facet counts and tag listings.
+--
+-- Can run against a live service; CONCURRENTLY builds the index without blocking writes:
+--   psql "$DB_URL" -f scripts/migrate-prompt-tag-index.sql
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_prompt_tags_tag ON prompt_tags (tag);
+
+ANALYZE prompt_tags;
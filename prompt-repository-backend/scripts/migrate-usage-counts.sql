@@ -0,0 +1,22 @@
+-- Adds per-prompt usage counts for sortBy=popularity and the hourly buckets behind /api/prompts/trending.
+-- Existing prompts start at zero uses.
+--
+-- Run once after scripts/migrate-uuid-ids.sql and before deploying the version with usage counts
+-- (needed with ddl-auto=validate):
+--   psql "$DB_URL" -f scripts/migrate-usage-counts.sql
+
+BEGIN;
+
+ALTER TABLE prompts ADD COLUMN IF NOT EXISTS usage_count bigint NOT NULL DEFAULT 0;
+CREATE INDEX IF NOT EXISTS idx_prompts_usage_count ON prompts (usage_count);
+
+CREATE TABLE IF NOT EXISTS prompt_usage_hours (
+    id bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    prompt_id uuid NOT NULL,
+    hour_start timestamp(6) NOT NULL,
+    uses bigint NOT NULL,
+    CONSTRAINT uk_prompt_usage_hours_prompt_hour UNIQUE (prompt_id, hour_start)
+);
+CREATE INDEX IF NOT EXISTS idx_prompt_usage_hours_hour ON prompt_usage_hours (hour_start);
+
+COMMIT;
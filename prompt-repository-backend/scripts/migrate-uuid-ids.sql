@@ -0,0 +1,45 @@
+-- Converts prompt and category keys from varchar(255) to the native 16-byte uuid type.
+-- Existing ids keep their value and text form; ids created afterwards are time-ordered (UUIDv7).
+--
+-- Run once against a stopped service, before deploying the version with UUID entity keys:
+--   psql "$DB_URL" -f scripts/migrate-uuid-ids.sql
+
+BEGIN;
+
+-- Foreign keys have generated names, so drop whatever references the columns being converted
+DO $$
+DECLARE
+    fk record;
+BEGIN
+    FOR fk IN
+        SELECT conrelid::regclass AS table_name, conname
+        FROM pg_constraint
+        WHERE contype = 'f'
+          AND conrelid IN ('prompt_variables'::regclass, 'prompt_categories'::regclass, 'prompt_tags'::regclass)
+    LOOP
+        EXECUTE format('ALTER TABLE %s DROP CONSTRAINT %I', fk.table_name, fk.conname);
+    END LOOP;
+END $$;
+
+ALTER TABLE categories ALTER COLUMN id TYPE uuid USING id::uuid;
+ALTER TABLE prompts ALTER COLUMN id TYPE uuid USING id::uuid;
+ALTER TABLE prompt_variables ALTER COLUMN id TYPE uuid USING id::uuid;
+ALTER TABLE prompt_variables ALTER COLUMN prompt_id TYPE uuid USING prompt_id::uuid;
+ALTER TABLE prompt_categories ALTER COLUMN prompt_id TYPE uuid USING prompt_id::uuid;
+ALTER TABLE prompt_categories ALTER COLUMN category_id TYPE uuid USING category_id::uuid;
+ALTER TABLE prompt_tags ALTER COLUMN prompt_id TYPE uuid USING prompt_id::uuid;
+ALTER TABLE IF EXISTS prompt_changes ALTER COLUMN prompt_id TYPE uuid USING prompt_id::uuid;
+ALTER TABLE IF EXISTS prompt_revisions ALTER COLUMN prompt_id TYPE uuid USING prompt_id::uuid;
+
+ALTER TABLE prompt_variables
+    ADD CONSTRAINT fk_prompt_variables_prompt FOREIGN KEY (prompt_id) REFERENCES prompts (id);
+ALTER TABLE prompt_categories
+    ADD CONSTRAINT fk_prompt_categories_prompt FOREIGN KEY (prompt_id) REFERENCES prompts (id);
+ALTER TABLE prompt_categories
+    ADD CONSTRAINT fk_prompt_categories_category FOREIGN KEY (category_id) REFERENCES categories (id);
+ALTER TABLE prompt_tags
+    ADD CONSTRAINT fk_prompt_tags_prompt FOREIGN KEY (prompt_id) REFERENCES prompts (id);
+
+COMMIT;
+
+ANALYZE categories, prompts, prompt_variables, prompt_categories, prompt_tags;
@@ -0,0 +1,108 @@
+#!/bin/bash
+
+# Compares time-to-ready and resident memory of the default build against the startup-optimised one:
+# the fast-startup profile alone, with Spring AOT, with a class-data sharing archive on top, and restored
+# from a CRaC checkpoint when the JDK supports it. Each mode is started [runs] times and the medians are
+# reported. Requires the database from podman/container.sh with the schema in place (start the default
+# build once; the fast-startup profile does not create it).
+#
+# Usage: ./scripts/startup-compare.sh [runs]
+
+set -e
+
+SCRIPT_DIR="$( cd "$( dirname "${BASH_SOURCE[0]}" )" && pwd )"
+PROJECT_DIR="$( dirname "$SCRIPT_DIR" )"
+RUNS=${1:-5}
+PORT=${PORT:-8081}
+HEALTH_URL="http://localhost:$PORT/api/health"
+DIST=build/startup
+DEFAULT_JAR=build/startup-default.jar
+
+cd "$PROJECT_DIR"
+./gradlew -q bootJar
+cp "$(ls build/libs/*.jar | grep -v -e plain -e startup | head -n 1)" "$DEFAULT_JAR"
+./gradlew -q startupDist -PstartupOptimized
+
+PROFILE=(-Dspring.profiles.active=fast-startup -jar "$DIST/app.jar")
+AOT=(-Dspring.aot.enabled=true "${PROFILE[@]}")
+
+# Training run: the context is refreshed and the JVM exits, leaving the classes it loaded in the archive
+java -XX:ArchiveClassesAtExit="$DIST/app.jsa" -Dspring.context.exit=onRefresh "${AOT[@]}" \
+    > build/startup-cds-training.log 2>&1 || true
+if [ ! -f "$DIST/app.jsa" ]; then
+    echo "No class-data sharing archive was written, see build/startup-cds-training.log"
+    exit 1
+fi
+
+CRAC=false
+if java -XX:CRaCCheckpointTo="$DIST/crac" -version > /dev/null 2>&1; then
+    # The JVM is checkpointed once the context is refreshed, before the web server opens its port
+    java -XX:CRaCCheckpointTo="$DIST/crac" -Dspring.context.checkpoint=onRefresh "${AOT[@]}" \
+        > build/startup-crac-checkpoint.log 2>&1 || true
+    if [ -n "$(ls -A "$DIST/crac" 2> /dev/null)" ]; then
+        CRAC=true
+    else
+        echo "CRaC checkpoint failed, see build/startup-crac-checkpoint.log"
+    fi
+fi
+
+now_ms() {
+    date +%s%3N
+}
+
+median() {
+    printf "%s\n" "$@" | sort -n | awk '{ values[NR] = $1 } END { print values[int((NR + 1) / 2)] }'
+}
+
+# Starts one JVM and prints the milliseconds until the health endpoint answers and its resident set in
+# MB at that point, or nothing if the JVM exits first
+measure() {
+    local log=$1
+    shift
+
+    local start=$(now_ms)
+    java "$@" > "$log" 2>&1 &
+    local pid=$!
+    trap "kill $pid 2> /dev/null" EXIT
+
+    until curl -sf -o /dev/null "$HEALTH_URL"; do
+        if ! kill -0 $pid 2> /dev/null; then
+            return
+        fi
+        sleep 0.05
+    done
+    local ready=$(( $(now_ms) - start ))
+    local rss=$(( $(ps -o rss= -p $pid) / 1024 ))
+
+    kill $pid
+    wait $pid 2> /dev/null || true
+    trap - EXIT
+    echo "$ready $rss"
+}
+
+run_mode() {
+    local label=$1
+    shift
+
+    local ready=()
+    local rss=()
+    for run in $(seq "$RUNS"); do
+        local result=$(measure "build/startup-$label.log" "$@")
+        if [ -z "$result" ]; then
+            printf "%-12s %16s %10s\n" "$label" "exited, see build/startup-$label.log" ""
+            return
+        fi
+        ready+=(${result% *})
+        rss+=(${result#* })
+    done
+    printf "%-12s %16s %10s\n" "$label" "$(median "${ready[@]}")" "$(median "${rss[@]}")"
+}
+
+printf "%-12s %16s %10s\n" "mode" "ready (ms)" "rss (MB)"
+run_mode default -jar "$DEFAULT_JAR"
+run_mode profile "${PROFILE[@]}"
+run_mode aot "${AOT[@]}"
+run_mode aot-cds -XX:SharedArchiveFile="$DIST/app.jsa" "${AOT[@]}"
+if [ "$CRAC" = true ]; then
+    run_mode crac -XX:CRaCRestoreFrom="$DIST/crac"
+fi
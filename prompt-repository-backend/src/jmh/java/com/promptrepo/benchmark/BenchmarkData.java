@@ -0,0 +1,130 @@
+package com.promptrepo.benchmark;
+
+import com.promptrepo.model.Category;
+import com.promptrepo.model.Prompt;
+import com.promptrepo.model.PromptVariable;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Deterministic synthetic catalogue: prompt content from 200 B to 50 KB (skewed towards small),
+ * 0-20 variables and 0-30 tags per prompt, spread over a handful of categories.
+ */
+public final class BenchmarkData {
+    
+    private static final String[] WORDS = {
+            "analyze", "the", "following", "code", "and", "list", "potential", "bugs", "summarize",
+            "document", "explain", "refactor", "performance", "security", "review", "test", "generate",
+            "assistant", "concise", "step", "context", "output", "format", "json", "markdown", "user",
+            "request", "function", "class", "module", "database", "query", "latency", "cache", "api"
+    };
+    
+    private BenchmarkData() {
+    }
+    
+    public static List<Category> categories(int count) {
+        List<Category> categories = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Category category = Category.builder()
+                    .name("Category " + i)
+                    .description("Prompts for category " + i)
+                    .displayOrder(i)
+                    .promptCount(1000 + i)
+                    .build();
+            category.setId(UUID.nameUUIDFromBytes(("category-" + i).getBytes()));
+            category.setCreatedAt(LocalDateTime.now());
+            category.setUpdatedAt(LocalDateTime.now());
+            categories.add(category);
+        }
+        return categories;
+    }
+    
+    public static List<Prompt> prompts(int count, long seed) {
+        Random random = new Random(seed);
+        List<Category> categories = categories(8);
+        List<Prompt> prompts = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            prompts.add(prompt(random, i, categories));
+        }
+        return prompts;
+    }
+    
+    private static Prompt prompt(Random random, int index, List<Category> categories) {
+        int variableCount = random.nextInt(21);
+        List<String> variableNames = new ArrayList<>(variableCount);
+        for (int v = 0; v < variableCount; v++) {
+            variableNames.add("var" + v);
+        }
+        
+        Prompt prompt = Prompt.builder()
+                .title(words(random, 3 + random.nextInt(6)))
+                .description(words(random, 10 + random.nextInt(20)))
+                .content(content(random, contentSize(random), variableNames))
+                .build();
+        prompt.setId(UUID.nameUUIDFromBytes(("prompt-" + index).getBytes()));
+        prompt.setCreatedAt(LocalDateTime.now().minusMinutes(index));
+        prompt.setUpdatedAt(LocalDateTime.now());
+        
+        int tagCount = random.nextInt(31);
+        for (int t = 0; t < tagCount; t++) {
+            prompt.getTags().add("tag-" + random.nextInt(200));
+        }
+        int categoryCount = random.nextInt(4);
+        for (int c = 0; c < categoryCount; c++) {
+            prompt.getCategories().add(categories.get(random.nextInt(categories.size())));
+        }
+        for (String name : variableNames) {
+            PromptVariable variable = PromptVariable.builder()
+                    .name(name)
+                    .description("Value for " + name)
+                    .defaultValue(random.nextBoolean() ? "default " + name : null)
+                    .required(random.nextBoolean())
+                    .type(random.nextInt(5) == 0
+                            ? PromptVariable.VariableType.NUMBER
+                            : PromptVariable.VariableType.MULTILINE)
+                    .prompt(prompt)
+                    .build();
+            variable.setId(UUID.randomUUID());
+            prompt.getVariables().add(variable);
+        }
+        return prompt;
+    }
+    
+    public static Map<String, Object> values(Prompt prompt) {
+        Map<String, Object> values = new HashMap<>();
+        for (PromptVariable variable : prompt.getVariables()) {
+            values.put(variable.getName(),
+                    variable.getType() == PromptVariable.VariableType.NUMBER ? 42 : "value of " + variable.getName());
+        }
+        return values;
+    }
+    
+    // Log-uniform between 200 B and 50 KB: most prompts are small, a long tail is large
+    private static int contentSize(Random random) {
+        return (int) Math.exp(Math.log(200) + random.nextDouble() * (Math.log(50_000) - Math.log(200)));
+    }
+    
+    private static String content(Random random, int size, List<String> variableNames) {
+        StringBuilder content = new StringBuilder(size + 64);
+        while (content.length() < size) {
+            if (!variableNames.isEmpty() && random.nextInt(20) == 0) {
+                content.append("{{").append(variableNames.get(random.nextInt(variableNames.size()))).append("}} ");
+            } else {
+                content.append(WORDS[random.nextInt(WORDS.length)]).append(random.nextInt(12) == 0 ? ".\n" : " ");
+            }
+        }
+        return content.toString();
+    }
+    
+    private static String words(Random random, int count) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                text.append(' ');
+            }
+            text.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,37 @@
+package com.promptrepo.metrics;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Overhead of per-request SQL accounting: one request that issues ten statements.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RequestSqlStatsBenchmark {
+    
+    private final SqlStatementRecorder recorder = new SqlStatementRecorder();
+    private final SqlSessionEventListener listener = new SqlSessionEventListener();
+    
+    @Benchmark
+    public int requestWithTenStatements() {
+        RequestSqlStats stats = RequestSqlStats.begin();
+        try {
+            listener.jdbcConnectionAcquisitionStart();
+            listener.jdbcConnectionAcquisitionEnd();
+            for (int i = 0; i < 10; i++) {
+                recorder.inspect("select p1_0.id from prompts p1_0 where p1_0.id=?");
+                listener.jdbcExecuteStatementStart();
+                listener.jdbcExecuteStatementEnd();
+            }
+            return stats.getStatementCount();
+        } finally {
+            RequestSqlStats.end();
+        }
+    }
+}
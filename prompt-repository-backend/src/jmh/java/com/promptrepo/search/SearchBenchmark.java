@@ -0,0 +1,42 @@
+package com.promptrepo.search;
+
+import com.promptrepo.benchmark.BenchmarkData;
+import com.promptrepo.event.ChangeType;
+import com.promptrepo.event.PromptChangedEvent;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SearchBenchmark {
+    
+    @Param({"1000", "20000"})
+    private int corpusSize;
+    
+    @Param({"cache", "security review", "refactor the database query"})
+    private String query;
+    
+    private PromptSearchIndex index;
+    
+    @Setup
+    public void setUp() {
+        index = new PromptSearchIndex(null);
+        BenchmarkData.prompts(corpusSize, 11)
+                .forEach(prompt -> index.index(PromptChangedEvent.of(ChangeType.CREATED, prompt)));
+    }
+    
+    @Benchmark
+    public PromptSearchIndex.SearchResult firstPage() {
+        return index.search(query, 0, 20);
+    }
+    
+    @Benchmark
+    public PromptSearchIndex.SearchResult deepPage() {
+        return index.search(query, 500, 20);
+    }
+}
@@ -0,0 +1,43 @@
+package com.promptrepo.search;
+
+import com.promptrepo.benchmark.BenchmarkData;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SemanticSearchBenchmark {
+
+    @Param({"20000", "100000"})
+    private int corpusSize;
+
+    @Param({"cache", "security review", "refactor the database query"})
+    private String query;
+
+    private HnswGraph graph;
+    private float[] queryVector;
+
+    @Setup
+    public void setUp() {
+        graph = new HnswGraph(HashingEmbedder.DIMENSIONS, 16, 100, corpusSize);
+        BenchmarkData.prompts(corpusSize, 11).forEach(prompt -> graph.put(prompt.getId().toString(),
+                HashingEmbedder.embed(prompt.getTitle(), prompt.getDescription(), prompt.getContent(), prompt.getTags())));
+        queryVector = HashingEmbedder.embedQuery(query);
+    }
+
+    @Benchmark
+    public float[] embedQuery() {
+        return HashingEmbedder.embedQuery(query);
+    }
+
+    @Benchmark
+    public List<VectorIndex.Match> firstPage() {
+        return graph.search(queryVector, 20, 64, null);
+    }
+}
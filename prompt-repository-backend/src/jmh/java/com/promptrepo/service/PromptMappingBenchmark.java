@@ -0,0 +1,64 @@
+package com.promptrepo.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.promptrepo.benchmark.BenchmarkData;
+import com.promptrepo.dto.PromptDto;
+import com.promptrepo.model.Prompt;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PromptMappingBenchmark {
+    
+    @Param({"20", "100"})
+    private int pageSize;
+    
+    private PromptService promptService;
+    private ObjectMapper objectMapper;
+    private List<Prompt> prompts;
+    private Page<PromptDto> page;
+    
+    @Setup
+    public void setUp() {
+        // Mapping touches none of the collaborators
+        promptService = new PromptService(null, null, null, null, null, null, null);
+        objectMapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        prompts = BenchmarkData.prompts(pageSize, 42);
+        page = new PageImpl<>(prompts.stream().map(promptService::toDto).toList(),
+                PageRequest.of(0, pageSize), 100_000);
+    }
+    
+    @Benchmark
+    public void toDto(Blackhole blackhole) {
+        for (Prompt prompt : prompts) {
+            blackhole.consume(promptService.toDto(prompt));
+        }
+    }
+    
+    @Benchmark
+    public void toCategoryDto(Blackhole blackhole) {
+        for (Prompt prompt : prompts) {
+            prompt.getCategories().forEach(category -> blackhole.consume(promptService.toCategoryDto(category)));
+        }
+    }
+    
+    @Benchmark
+    public byte[] serializePage() throws Exception {
+        return objectMapper.writeValueAsBytes(page);
+    }
+}
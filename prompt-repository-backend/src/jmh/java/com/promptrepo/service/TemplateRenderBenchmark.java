@@ -0,0 +1,48 @@
+package com.promptrepo.service;
+
+import com.promptrepo.benchmark.BenchmarkData;
+import com.promptrepo.model.Prompt;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TemplateRenderBenchmark {
+    
+    private static final int PROMPTS = 200;
+    
+    private List<Prompt> prompts;
+    private List<CompiledTemplate> templates;
+    private List<Map<String, Object>> values;
+    
+    @Setup
+    public void setUp() {
+        prompts = BenchmarkData.prompts(PROMPTS, 7);
+        templates = prompts.stream()
+                .map(prompt -> CompiledTemplate.compile(prompt.getContent(), prompt.getVariables()))
+                .toList();
+        values = prompts.stream().map(BenchmarkData::values).toList();
+    }
+    
+    @Benchmark
+    public void compile(Blackhole blackhole) {
+        for (Prompt prompt : prompts) {
+            blackhole.consume(CompiledTemplate.compile(prompt.getContent(), prompt.getVariables()));
+        }
+    }
+    
+    @Benchmark
+    public void renderCompiled(Blackhole blackhole) {
+        for (int i = 0; i < PROMPTS; i++) {
+            blackhole.consume(templates.get(i).render(values.get(i)));
+        }
+    }
+}
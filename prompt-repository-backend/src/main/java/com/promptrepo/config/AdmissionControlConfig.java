@@ -0,0 +1,46 @@
+package com.promptrepo.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Per-client rate limits and per-endpoint-class concurrency limits, off unless
+ * {@code promptrepo.admission.enabled} is true. Behind a load balancer, list its addresses in
+ * {@code promptrepo.trusted-proxies} first, or every client shares the balancer's bucket.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "promptrepo.admission", name = "enabled")
+public class AdmissionControlConfig {
+
+    @Bean
+    public FilterRegistrationBean<AdmissionControlFilter> admissionControlFilter(
+            MeterRegistry meterRegistry,
+            @Value("${promptrepo.admission.rate:20}") double rate,
+            @Value("${promptrepo.admission.burst:100}") int burst,
+            @Value("${promptrepo.admission.max-concurrent.read:128}") int maxRead,
+            @Value("${promptrepo.admission.max-concurrent.write:32}") int maxWrite,
+            @Value("${promptrepo.admission.max-concurrent.search:16}") int maxSearch,
+            @Value("${promptrepo.admission.max-concurrent.bulk:2}") int maxBulk,
+            @Value("${promptrepo.admission.max-concurrent.stream:1000}") int maxStream,
+            @Value("${promptrepo.trusted-proxies:}") List<String> trustedProxies) {
+        Map<AdmissionControlFilter.EndpointClass, Integer> maxConcurrent = Map.of(
+                AdmissionControlFilter.EndpointClass.READ, maxRead,
+                AdmissionControlFilter.EndpointClass.WRITE, maxWrite,
+                AdmissionControlFilter.EndpointClass.SEARCH, maxSearch,
+                AdmissionControlFilter.EndpointClass.BULK, maxBulk,
+                AdmissionControlFilter.EndpointClass.STREAM, maxStream);
+        FilterRegistrationBean<AdmissionControlFilter> registration = new FilterRegistrationBean<>(
+                new AdmissionControlFilter(rate, burst, maxConcurrent, trustedProxies, meterRegistry));
+        // Ahead of every other filter, so a shed request does no other work
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+}
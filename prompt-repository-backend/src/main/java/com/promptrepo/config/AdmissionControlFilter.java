@@ -0,0 +1,220 @@
+package com.promptrepo.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Admits or sheds API requests before they reach a controller.
+ * <p>
+ * Every client has a token bucket; a request takes tokens by its endpoint class, so one search costs
+ * as much as several lookups, and a client that runs dry gets 429. Each endpoint class also has its
+ * own cap on requests in flight, so a flood of searches or exports gets 503 once its share is taken
+ * while cheap reads keep being served. Both rejections carry {@code Retry-After} and cost no
+ * database work. Clients are told apart by address, as resolved by {@link ClientAddress}: no request
+ * header is checked against anything, so keying on one would let a client pick a fresh bucket per request.
+ */
+public class AdmissionControlFilter extends OncePerRequestFilter {
+
+    public enum EndpointClass {
+        READ(1), WRITE(2), SEARCH(5), BULK(20), STREAM(1);
+
+        private final int tokens;
+
+        EndpointClass(int tokens) {
+            this.tokens = tokens;
+        }
+    }
+
+    private final double tokensPerSecond;
+    private final int burst;
+    private final Cache<String, TokenBucket> buckets;
+    private final ClientAddress clientAddress;
+    private final Map<EndpointClass, InFlight> inFlight = new EnumMap<>(EndpointClass.class);
+    private final Map<EndpointClass, Counter> rateRejections = new EnumMap<>(EndpointClass.class);
+    private final Map<EndpointClass, Counter> concurrencyRejections = new EnumMap<>(EndpointClass.class);
+
+    public AdmissionControlFilter(double tokensPerSecond, int burst, Map<EndpointClass, Integer> maxConcurrent,
+                                  Collection<String> trustedProxies, MeterRegistry meterRegistry) {
+        this.tokensPerSecond = tokensPerSecond;
+        this.burst = burst;
+        this.clientAddress = new ClientAddress(trustedProxies);
+        // An idle client's bucket has refilled completely, so dropping it loses nothing
+        this.buckets = Caffeine.newBuilder()
+                .expireAfterAccess(Duration.ofNanos((long) (burst / tokensPerSecond * 1_000_000_000L)).plusSeconds(1))
+                .maximumSize(100_000)
+                .build();
+        for (EndpointClass endpointClass : EndpointClass.values()) {
+            InFlight limit = new InFlight(maxConcurrent.get(endpointClass));
+            inFlight.put(endpointClass, limit);
+            String tag = endpointClass.name().toLowerCase();
+            Gauge.builder("promptrepo.admission.in.flight", limit.count, AtomicInteger::get)
+                    .tag("class", tag)
+                    .register(meterRegistry);
+            rateRejections.put(endpointClass, Counter.builder("promptrepo.admission.rejected")
+                    .tags("class", tag, "reason", "rate")
+                    .register(meterRegistry));
+            concurrencyRejections.put(endpointClass, Counter.builder("promptrepo.admission.rejected")
+                    .tags("class", tag, "reason", "concurrency")
+                    .register(meterRegistry));
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        // Preflights and health probes are never shed
+        String path = request.getRequestURI();
+        return !path.startsWith("/api/") || path.startsWith("/api/health") || request.getMethod().equals("OPTIONS");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        EndpointClass endpointClass = classify(request);
+
+        long now = System.nanoTime();
+        long waitNanos = buckets.get(clientAddress.of(request), key -> new TokenBucket(tokensPerSecond, burst, now))
+                .tryTake(Math.min(endpointClass.tokens, burst), now);
+        if (waitNanos > 0) {
+            rateRejections.get(endpointClass).increment();
+            reject(response, HttpStatus.TOO_MANY_REQUESTS, waitNanos, "Rate limit exceeded");
+            return;
+        }
+
+        InFlight limit = inFlight.get(endpointClass);
+        if (!limit.tryAcquire()) {
+            concurrencyRejections.get(endpointClass).increment();
+            reject(response, HttpStatus.SERVICE_UNAVAILABLE, 1_000_000_000L,
+                    "Too many concurrent " + endpointClass.name().toLowerCase() + " requests");
+            return;
+        }
+
+        Release release = new Release(limit);
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            // Streaming exports and event streams stay in flight until the async response ends
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(release);
+            } else {
+                release.run();
+            }
+        }
+    }
+
+    static EndpointClass classify(HttpServletRequest request) {
+        String path = request.getRequestURI();
+        String method = request.getMethod();
+        if (path.startsWith("/api/events")) {
+            return EndpointClass.STREAM;
+        }
+        if (path.equals("/api/prompts/import") || path.equals("/api/prompts/export")) {
+            return EndpointClass.BULK;
+        }
+        if (path.equals("/api/prompts/search") || path.endsWith("/similar") || path.endsWith("/revisions/diff")
+                || (path.equals("/api/prompts/tags") && request.getParameter("q") != null)) {
+            return EndpointClass.SEARCH;
+        }
+        // Batch lookups and rendering are POSTs that read
+        if (method.equals("GET") || method.equals("HEAD")
+                || path.equals("/api/prompts/batch") || path.endsWith("/render")) {
+            return EndpointClass.READ;
+        }
+        return EndpointClass.WRITE;
+    }
+
+    private static void reject(HttpServletResponse response, HttpStatus status, long retryAfterNanos, String message)
+            throws IOException {
+        long seconds = Math.max(1, (retryAfterNanos + 999_999_999L) / 1_000_000_000L);
+        response.setStatus(status.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(seconds));
+        // Written before CORS handling runs, which only happens once a handler is chosen
+        response.setHeader(HttpHeaders.ACCESS_CONTROL_ALLOW_ORIGIN, "*");
+        response.setHeader(HttpHeaders.ACCESS_CONTROL_EXPOSE_HEADERS, HttpHeaders.RETRY_AFTER);
+        response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+        response.getWriter().write(message);
+    }
+
+    private static final class InFlight {
+
+        private final int max;
+        private final AtomicInteger count = new AtomicInteger();
+
+        InFlight(int max) {
+            this.max = max;
+        }
+
+        boolean tryAcquire() {
+            while (true) {
+                int current = count.get();
+                if (current >= max) {
+                    return false;
+                }
+                if (count.compareAndSet(current, current + 1)) {
+                    return true;
+                }
+            }
+        }
+
+        void release() {
+            count.decrementAndGet();
+        }
+    }
+
+    // Completion, error and timeout can each fire for one async request; the permit goes back once
+    private static final class Release extends AtomicBoolean implements Runnable, AsyncListener {
+
+        private final InFlight limit;
+
+        Release(InFlight limit) {
+            this.limit = limit;
+        }
+
+        @Override
+        public void run() {
+            if (compareAndSet(false, true)) {
+                limit.release();
+            }
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            run();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            run();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            run();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            event.getAsyncContext().addListener(this);
+        }
+    }
+}
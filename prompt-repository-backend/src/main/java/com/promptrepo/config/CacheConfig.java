@@ -0,0 +1,18 @@
+package com.promptrepo.config;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * Caches are sized and expired through {@code spring.cache.caffeine.spec}. The caching advisor runs
+ * before the transaction advisor, so a cache hit never opens a transaction or borrows a connection.
+ */
+@Configuration
+@EnableCaching(order = Ordered.HIGHEST_PRECEDENCE)
+public class CacheConfig {
+    
+    public static final String PROMPTS = "prompts";
+    public static final String CATEGORIES = "categories";
+    public static final String CATEGORY_LIST = "categoryList";
+}
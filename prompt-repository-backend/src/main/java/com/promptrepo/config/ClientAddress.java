@@ -0,0 +1,45 @@
+package com.promptrepo.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+import java.util.Collection;
+import java.util.Set;
+
+/**
+ * Resolves the address of the client behind a request. {@code X-Forwarded-For} is honoured only when the
+ * connection comes from one of the configured proxies, and then the rightmost address not added by a
+ * trusted proxy is taken, since anything to its left was written by the client and can be forged.
+ */
+class ClientAddress {
+
+    static final String FORWARDED_FOR_HEADER = "X-Forwarded-For";
+
+    private final Set<String> trustedProxies;
+
+    ClientAddress(Collection<String> trustedProxies) {
+        this.trustedProxies = Set.copyOf(trustedProxies);
+    }
+
+    String of(HttpServletRequest request) {
+        String address = request.getRemoteAddr();
+        if (!trustedProxies.contains(address)) {
+            return address;
+        }
+        String forwardedFor = request.getHeader(FORWARDED_FOR_HEADER);
+        if (forwardedFor == null || forwardedFor.isBlank()) {
+            return address;
+        }
+        String[] hops = forwardedFor.split(",");
+        for (int i = hops.length - 1; i >= 0; i--) {
+            String hop = hops[i].trim();
+            if (hop.isEmpty()) {
+                break;
+            }
+            address = hop;
+            if (!trustedProxies.contains(hop)) {
+                break;
+            }
+        }
+        return address;
+    }
+}
@@ -0,0 +1,47 @@
+package com.promptrepo.config;
+
+import com.promptrepo.service.DatabaseAvailability;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Refuses writes and imports with 503 while the database is unreachable, instead of letting each one
+ * wait for a connection. Reads carry on from the catalogue snapshot.
+ */
+@Component
+@RequiredArgsConstructor
+public class ReadOnlyModeFilter extends OncePerRequestFilter {
+
+    private final DatabaseAvailability databaseAvailability;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith("/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        AdmissionControlFilter.EndpointClass endpointClass = AdmissionControlFilter.classify(request);
+        boolean write = endpointClass == AdmissionControlFilter.EndpointClass.WRITE
+                || (endpointClass == AdmissionControlFilter.EndpointClass.BULK && request.getMethod().equals("POST"));
+        if (write && !databaseAvailability.isAvailable()) {
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, "5");
+            response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+            response.getWriter().write("Database unreachable, the catalogue is read-only");
+            return;
+        }
+        chain.doFilter(request, response);
+    }
+}
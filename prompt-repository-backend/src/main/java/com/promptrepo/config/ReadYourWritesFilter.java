@@ -0,0 +1,154 @@
+package com.promptrepo.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseCookie;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pins requests to the primary database until the replica has replayed the client's last write. Write
+ * requests run on the primary and answer with the primary's WAL position after the write, in the
+ * {@value #READ_AFTER_COOKIE} cookie and the {@value #READ_AFTER_HEADER} header. A read carrying that
+ * position, as the cookie or echoed in the header, goes to the primary until the replica's replay position
+ * has passed it. Nothing is kept per client on the server, so every instance gives the same answer.
+ */
+@Slf4j
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+    
+    static final String READ_AFTER_COOKIE = "read-after";
+    static final String READ_AFTER_HEADER = "X-Read-After";
+    private static final Set<String> SAFE_METHODS = Set.of("GET", "HEAD", "OPTIONS");
+    // Reads behind the last known replay position wait this long before the replica is asked again
+    private static final long RECHECK_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+    
+    private final Duration window;
+    private final JdbcTemplate primary;
+    private final JdbcTemplate replica;
+    private volatile long replayed;
+    private volatile long replayCheckedAt = System.nanoTime() - RECHECK_NANOS;
+    
+    public ReadYourWritesFilter(Duration window, DataSource primary, DataSource replica) {
+        this.window = window;
+        this.primary = new JdbcTemplate(primary);
+        this.replica = new JdbcTemplate(replica);
+    }
+    
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (!SAFE_METHODS.contains(request.getMethod())) {
+            write(request, response, chain);
+            return;
+        }
+        long readAfter = readAfter(request);
+        boolean pinned = readAfter > 0 && !replicaHasReplayed(readAfter);
+        if (pinned) {
+            ReplicaRoutingDataSource.pinToPrimary();
+        }
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            if (pinned) {
+                ReplicaRoutingDataSource.unpin();
+            }
+        }
+    }
+    
+    private void write(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        // The body is held back so the position, only known once the write has committed, can still be sent
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        ReplicaRoutingDataSource.pinToPrimary();
+        try {
+            chain.doFilter(request, wrapper);
+        } finally {
+            ReplicaRoutingDataSource.unpin();
+            if (wrapper.getStatus() < 400) {
+                sendPosition(wrapper);
+            }
+            wrapper.copyBodyToResponse();
+        }
+    }
+    
+    private void sendPosition(HttpServletResponse response) {
+        String position;
+        try {
+            position = primary.queryForObject("SELECT pg_current_wal_lsn()::text", String.class);
+        } catch (DataAccessException e) {
+            log.warn("Could not read the primary's WAL position; the next reads may go to a lagging replica", e);
+            return;
+        }
+        if (position == null) {
+            return;
+        }
+        String value = Long.toHexString(parseLsn(position));
+        response.setHeader(READ_AFTER_HEADER, value);
+        response.addHeader(HttpHeaders.SET_COOKIE, ResponseCookie.from(READ_AFTER_COOKIE, value)
+                .path("/")
+                .httpOnly(true)
+                .sameSite("Lax")
+                .maxAge(window)
+                .build()
+                .toString());
+    }
+    
+    // 0 when the request carries no usable position
+    private static long readAfter(HttpServletRequest request) {
+        String value = request.getHeader(READ_AFTER_HEADER);
+        if (value == null && request.getCookies() != null) {
+            for (Cookie cookie : request.getCookies()) {
+                if (READ_AFTER_COOKIE.equals(cookie.getName())) {
+                    value = cookie.getValue();
+                }
+            }
+        }
+        if (value == null || value.isBlank()) {
+            return 0;
+        }
+        try {
+            return Long.parseUnsignedLong(value.trim(), 16);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+    
+    private boolean replicaHasReplayed(long position) {
+        if (Long.compareUnsigned(replayed, position) >= 0) {
+            return true;
+        }
+        long now = System.nanoTime();
+        if (now - replayCheckedAt < RECHECK_NANOS) {
+            return false;
+        }
+        replayCheckedAt = now;
+        try {
+            String lsn = replica.queryForObject("SELECT pg_last_wal_replay_lsn()::text", String.class);
+            // No replay position means the "replica" is not a standby, such as the primary as a stand-in
+            replayed = lsn == null ? -1L : parseLsn(lsn);
+        } catch (DataAccessException e) {
+            log.debug("Could not read the replica's replay position", e);
+            return false;
+        }
+        return Long.compareUnsigned(replayed, position) >= 0;
+    }
+    
+    // Postgres prints an LSN as two 32-bit hex halves, e.g. 16/B374D848
+    static long parseLsn(String lsn) {
+        int separator = lsn.indexOf('/');
+        return Long.parseLong(lsn.substring(0, separator), 16) << 32 | Long.parseLong(lsn.substring(separator + 1), 16);
+    }
+}
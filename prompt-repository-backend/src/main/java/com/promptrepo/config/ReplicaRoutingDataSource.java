@@ -0,0 +1,64 @@
+package com.promptrepo.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.function.Supplier;
+
+/**
+ * Sends connections for read-only transactions to the replica and everything else to the primary.
+ * Must sit behind a {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}, since the
+ * read-only flag is only bound after the transaction manager has asked for a connection.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+    
+    public enum Route {
+        PRIMARY, REPLICA
+    }
+    
+    private static final ThreadLocal<Boolean> PINNED = new ThreadLocal<>();
+    
+    /**
+     * Routes every transaction on this thread to the primary until {@link #unpin()}, so a client that just
+     * wrote reads its own writes even when the replica lags.
+     */
+    public static void pinToPrimary() {
+        PINNED.set(Boolean.TRUE);
+    }
+    
+    public static void unpin() {
+        PINNED.remove();
+    }
+    
+    /**
+     * Runs {@code read} against the primary, for reads that fill a cache: the replica may not have the write
+     * whose commit just evicted the entry yet, and would put the old value back until it expires. Works
+     * inside a read-only transaction as long as it has not issued a statement before.
+     */
+    public static <T> T onPrimary(Supplier<T> read) {
+        boolean pinned = PINNED.get() != null;
+        PINNED.set(Boolean.TRUE);
+        try {
+            return read.get();
+        } finally {
+            if (!pinned) {
+                PINNED.remove();
+            }
+        }
+    }
+    
+    /**
+     * Where a connection asked for on this thread now would go.
+     */
+    public static Route currentRoute() {
+        if (PINNED.get() == null && TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return Route.REPLICA;
+        }
+        return Route.PRIMARY;
+    }
+    
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return currentRoute();
+    }
+}
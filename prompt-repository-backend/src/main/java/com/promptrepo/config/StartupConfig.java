@@ -0,0 +1,20 @@
+package com.promptrepo.config;
+
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Under {@code spring.main.lazy-initialization} (the fast-startup profile) the application's own beans,
+ * and everything they depend on, are still created at startup, so filters, indexes and the catalogue
+ * snapshot behave as before. Only framework beans nothing here needs up front, such as the OpenAPI docs
+ * and actuator endpoints, wait for their first request.
+ */
+@Configuration
+public class StartupConfig {
+
+    @Bean
+    static LazyInitializationExcludeFilter applicationBeansEager() {
+        return (beanName, beanDefinition, beanType) -> beanType.getName().startsWith("com.promptrepo.");
+    }
+}
@@ -0,0 +1,40 @@
+package com.promptrepo.config;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket held as a single timestamp: the time at which the bucket will be full again
+ * (the generic cell rate algorithm). Taking tokens pushes that time forward with one compare-and-set,
+ * so concurrent requests from the same client never block each other.
+ */
+final class TokenBucket {
+
+    private final long nanosPerToken;
+    private final long burstNanos;
+    private final AtomicLong fullAt;
+
+    TokenBucket(double tokensPerSecond, int burst, long now) {
+        this.nanosPerToken = Math.max(1, (long) (1_000_000_000L / tokensPerSecond));
+        this.burstNanos = nanosPerToken * burst;
+        this.fullAt = new AtomicLong(now);
+    }
+
+    /**
+     * Takes {@code tokens} if the bucket holds them, returning 0, or leaves the bucket untouched and
+     * returns the nanoseconds until it will.
+     */
+    long tryTake(int tokens, long now) {
+        long cost = nanosPerToken * tokens;
+        while (true) {
+            long current = fullAt.get();
+            long next = (current - now > 0 ? current : now) + cost;
+            long excess = next - now - burstNanos;
+            if (excess > 0) {
+                return excess;
+            }
+            if (fullAt.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+}
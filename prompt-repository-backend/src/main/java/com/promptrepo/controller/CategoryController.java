@@ -2,14 +2,13 @@ package com.promptrepo.controller;
 
 import com.promptrepo.dto.CategoryDto;
 import com.promptrepo.model.Category;
+import com.promptrepo.service.CatalogueSnapshot;
 import com.promptrepo.service.CategoryService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
-
 @RestController
 @RequestMapping("/api/categories")
 @RequiredArgsConstructor
@@ -17,16 +16,21 @@ import java.util.List;
 public class CategoryController {
     
     private final CategoryService categoryService;
+    private final SnapshotFallback snapshotFallback;
     
     @GetMapping
-    public ResponseEntity<List<CategoryDto>> getAllCategories() {
-        return ResponseEntity.ok(categoryService.getAllCategories());
+    public ResponseEntity<?> getAllCategories() {
+        return snapshotFallback.read(
+                () -> ResponseEntity.ok(categoryService.getAllCategories()),
+                CatalogueSnapshot::getCategories);
     }
     
     @GetMapping("/{id}")
     public ResponseEntity<?> getCategoryById(@PathVariable String id) {
         try {
-            return ResponseEntity.ok(categoryService.getCategoryById(id));
+            return snapshotFallback.read(
+                    () -> ResponseEntity.ok(categoryService.getCategoryById(id)),
+                    snapshot -> snapshot.getCategory(id));
         } catch (IllegalArgumentException e) {
             return ResponseEntity.notFound().build();
         }
@@ -44,7 +48,7 @@ public class CategoryController {
             );
             
             return ResponseEntity.status(HttpStatus.CREATED)
-                    .body(categoryService.getCategoryById(category.getId()));
+                    .body(categoryService.getCategoryById(category.getId().toString()));
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().body(e.getMessage());
         } catch (Exception e) {
@@ -66,7 +70,7 @@ public class CategoryController {
                     request.getDisplayOrder()
             );
             
-            return ResponseEntity.ok(categoryService.getCategoryById(category.getId()));
+            return ResponseEntity.ok(categoryService.getCategoryById(category.getId().toString()));
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().body(e.getMessage());
         } catch (Exception e) {
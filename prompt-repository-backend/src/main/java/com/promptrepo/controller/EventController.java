@@ -0,0 +1,27 @@
+package com.promptrepo.controller;
+
+import com.promptrepo.service.ChangeStream;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@RestController
+@RequestMapping("/api/events")
+@RequiredArgsConstructor
+@CrossOrigin
+public class EventController {
+    
+    private final ChangeStream changeStream;
+    
+    /**
+     * Server-Sent Events stream of committed prompt and category changes. Browsers send
+     * {@code Last-Event-ID} on reconnect; other clients may pass the same value as {@code lastEventId}.
+     */
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventIdHeader,
+            @RequestParam(required = false) String lastEventId) {
+        return changeStream.subscribe(lastEventIdHeader != null ? lastEventIdHeader : lastEventId);
+    }
+}
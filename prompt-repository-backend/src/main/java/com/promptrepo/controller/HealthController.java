@@ -1,16 +1,24 @@
 package com.promptrepo.controller;
 
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.TreeMap;
 
 @RestController
 @RequestMapping("/api")
+@RequiredArgsConstructor
 public class HealthController {
     
+    private final CacheManager cacheManager;
+    
     @GetMapping("/health")
     public Map<String, String> health() {
         Map<String, String> response = new HashMap<>();
@@ -18,4 +26,22 @@ public class HealthController {
         response.put("message", "Prompt Repository API is running");
         return response;
     }
+    
+    @GetMapping("/health/cache")
+    public Map<String, Map<String, Object>> cacheStats() {
+        Map<String, Map<String, Object>> response = new TreeMap<>();
+        for (String name : cacheManager.getCacheNames()) {
+            if (cacheManager.getCache(name) instanceof CaffeineCache cache) {
+                CacheStats stats = cache.getNativeCache().stats();
+                Map<String, Object> entry = new HashMap<>();
+                entry.put("size", cache.getNativeCache().estimatedSize());
+                entry.put("hits", stats.hitCount());
+                entry.put("misses", stats.missCount());
+                entry.put("hitRate", stats.hitRate());
+                entry.put("evictions", stats.evictionCount());
+                response.put(name, entry);
+            }
+        }
+        return response;
+    }
 }
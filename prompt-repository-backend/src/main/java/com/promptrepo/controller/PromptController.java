@@ -1,18 +1,39 @@
 package com.promptrepo.controller;
 
+import com.promptrepo.dto.BatchGetPromptsRequest;
 import com.promptrepo.dto.CreatePromptRequest;
 import com.promptrepo.dto.PromptDto;
+import com.promptrepo.dto.RenderPromptRequest;
+import com.promptrepo.dto.SimilarPromptDto;
 import com.promptrepo.dto.UpdatePromptRequest;
 import com.promptrepo.model.Prompt;
+import com.promptrepo.search.SuggestionIndex;
+import com.promptrepo.service.PromptBulkService;
+import com.promptrepo.service.PromptCursor;
+import com.promptrepo.service.PromptFields;
+import com.promptrepo.service.PromptRenderException;
+import com.promptrepo.service.PromptRenderService;
+import com.promptrepo.service.PromptRevisionService;
 import com.promptrepo.service.PromptService;
+import com.promptrepo.service.PromptSimilarityService;
+import com.promptrepo.service.PromptUsageTracker;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping("/api/prompts")
@@ -21,10 +42,21 @@ import org.springframework.web.bind.annotation.*;
 public class PromptController {
     
     private final PromptService promptService;
+    private final PromptRenderService promptRenderService;
+    private final PromptBulkService promptBulkService;
+    private final PromptRevisionService promptRevisionService;
+    private final PromptSimilarityService promptSimilarityService;
+    private final PromptUsageTracker promptUsageTracker;
+    private final SuggestionIndex suggestionIndex;
+    private final SnapshotFallback snapshotFallback;
     
     @PostMapping
     public ResponseEntity<?> createPrompt(@RequestBody CreatePromptRequest request) {
         try {
+            // Checked before the write so the new prompt cannot match itself; the create still goes ahead
+            List<SimilarPromptDto> duplicates = request.getContent() != null
+                    ? promptSimilarityService.findDuplicates(request.getContent())
+                    : List.of();
             Prompt prompt = promptService.createPrompt(
                     request.getTitle(),
                     request.getContent(),
@@ -34,13 +66,40 @@ public class PromptController {
                     request.getVariables()
             );
             
-            return ResponseEntity.status(HttpStatus.CREATED)
-                    .body(promptService.getPromptById(prompt.getId()));
+            ResponseEntity.BodyBuilder response = ResponseEntity.status(HttpStatus.CREATED);
+            if (!duplicates.isEmpty()) {
+                response.header("X-Possible-Duplicates", duplicates.stream()
+                        .map(SimilarPromptDto::getId)
+                        .toArray(String[]::new));
+            }
+            return response.body(promptService.getPromptById(prompt.getId().toString()));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(e.getMessage());
         }
     }
     
+    @PostMapping("/batch")
+    public ResponseEntity<?> getPromptsByIds(@RequestBody BatchGetPromptsRequest request) {
+        try {
+            return ResponseEntity.ok(promptService.getPromptsByIds(request.getIds()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+    
+    @PostMapping(value = "/import",
+                 consumes = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<?> importPrompts(InputStream body) throws IOException {
+        return ResponseEntity.ok(promptBulkService.importPrompts(body));
+    }
+    
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportPrompts() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(promptBulkService::exportPrompts);
+    }
+    
     @PutMapping("/{id}")
     public ResponseEntity<?> updatePrompt(@PathVariable String id,
                                          @RequestBody UpdatePromptRequest request) {
@@ -55,7 +114,7 @@ public class PromptController {
                     request.getVariables()
             );
             
-            return ResponseEntity.ok(promptService.getPromptById(prompt.getId()));
+            return ResponseEntity.ok(promptService.getPromptById(prompt.getId().toString()));
         } catch (IllegalArgumentException e) {
             return ResponseEntity.notFound().build();
         } catch (Exception e) {
@@ -76,55 +135,283 @@ public class PromptController {
     }
     
     @GetMapping
-    public ResponseEntity<Page<PromptDto>> getAllPrompts(
+    public ResponseEntity<?> getAllPrompts(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size,
             @RequestParam(defaultValue = "createdAt") String sortBy,
-            @RequestParam(defaultValue = "DESC") String sortDirection) {
+            @RequestParam(defaultValue = "DESC") String sortDirection,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) String fields,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         
         Sort.Direction direction = sortDirection.equalsIgnoreCase("ASC") ? 
                 Sort.Direction.ASC : Sort.Direction.DESC;
-        Pageable pageable = PageRequest.of(page, size, Sort.by(direction, sortBy));
+        boolean popularity = sortBy.equals("popularity");
+        String sortProperty = popularity ? "usageCount" : sortBy;
         
-        return ResponseEntity.ok(promptService.getAllPrompts(pageable));
+        try {
+            PromptFields promptFields = fields != null ? PromptFields.parse(fields) : null;
+            
+            if (cursor != null) {
+                PromptCursor promptCursor = PromptCursor.parse(cursor, sortProperty, direction);
+                return conditional(ifNoneMatch, !popularity, () -> promptFields != null
+                        ? promptFields.select(promptService.getAllPrompts(promptCursor, pageSize(size)))
+                        : promptService.getAllPrompts(promptCursor, pageSize(size)));
+            }
+            
+            // Many prompts share a usage count, so ties need an order that holds from one page to the next
+            Sort sort = popularity
+                    ? Sort.by(direction, sortProperty).and(Sort.by(direction, "id"))
+                    : Sort.by(direction, sortProperty);
+            Pageable pageable = PageRequest.of(page, pageSize(size), sort);
+            return snapshotFallback.read(
+                    () -> conditional(ifNoneMatch, !popularity, () -> promptFields != null
+                            ? promptService.getAllPrompts(pageable, promptFields)
+                            : promptService.getAllPrompts(pageable)),
+                    snapshot -> promptFields != null
+                            ? snapshot.getPrompts(pageable).map(promptFields::select)
+                            : snapshot.getPrompts(pageable));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+    
+    @GetMapping("/changes")
+    public ResponseEntity<?> getChanges(
+            @RequestParam(required = false) String since,
+            @RequestParam(defaultValue = "500") int limit) {
+        try {
+            Long token = since != null ? Long.valueOf(since) : null;
+            return ResponseEntity.ok(promptService.getChanges(token, Math.min(Math.max(limit, 1), 1000)));
+        } catch (NumberFormatException e) {
+            return ResponseEntity.badRequest().body("Invalid since token");
+        }
+    }
+    
+    @GetMapping("/tags")
+    public ResponseEntity<?> getTagCounts(
+            @RequestParam(required = false) String categoryId,
+            @RequestParam(required = false) String q,
+            @RequestParam(defaultValue = "100") int limit) {
+        try {
+            return ResponseEntity.ok(promptService.getTagCounts(categoryId, q, Math.min(Math.max(limit, 1), 1000)));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(e.getMessage());
+        }
+    }
+    
+    @GetMapping("/trending")
+    public ResponseEntity<?> getTrending(
+            @RequestParam(defaultValue = "24") int hours,
+            @RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(promptService.getTrending(
+                Math.min(Math.max(hours, 1), PromptUsageTracker.MAX_TRENDING_HOURS),
+                Math.min(Math.max(limit, 1), 100)));
+    }
+    
+    @GetMapping("/suggest")
+    public ResponseEntity<?> suggest(
+            @RequestParam String prefix,
+            @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(suggestionIndex.suggest(prefix, Math.min(Math.max(limit, 1), 50)));
     }
     
     @GetMapping("/search")
-    public ResponseEntity<Page<PromptDto>> searchPrompts(
+    public ResponseEntity<?> searchPrompts(
             @RequestParam String q,
+            @RequestParam(defaultValue = "keyword") String mode,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size) {
         
-        Pageable pageable = PageRequest.of(page, size);
-        return ResponseEntity.ok(promptService.searchPrompts(q, pageable));
+        Pageable pageable = PageRequest.of(page, pageSize(size));
+        return switch (mode) {
+            case "keyword" -> ResponseEntity.ok(promptService.searchPrompts(q, pageable));
+            case "semantic" -> ResponseEntity.ok(promptService.semanticSearchPrompts(q, pageable));
+            default -> ResponseEntity.badRequest().body("mode must be keyword or semantic");
+        };
     }
     
     @GetMapping("/{id}")
-    public ResponseEntity<?> getPromptById(@PathVariable String id) {
+    public ResponseEntity<?> getPromptById(
+            @PathVariable String id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        try {
+            ResponseEntity<?> response = snapshotFallback.read(
+                    () -> conditionalPrompt(ifNoneMatch, id),
+                    snapshot -> snapshot.getPrompt(id));
+            // Revalidations answered 304 and reads served from the snapshot while the database is down are not uses
+            if (response.getStatusCode() == HttpStatus.OK && response.hasBody()
+                    && !response.getHeaders().containsKey(SnapshotFallback.SNAPSHOT_HEADER)) {
+                promptUsageTracker.recordUse(id);
+            }
+            return response;
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+    
+    @PostMapping("/{id}/render")
+    public ResponseEntity<?> renderPrompt(@PathVariable String id,
+                                          @RequestBody(required = false) RenderPromptRequest request) {
+        try {
+            ResponseEntity<?> response = ResponseEntity.ok(promptRenderService.renderPrompt(
+                    id, request != null ? request.getVariables() : null));
+            promptUsageTracker.recordUse(id);
+            return response;
+        } catch (PromptRenderException e) {
+            return ResponseEntity.badRequest().body(e.getErrors());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+    
+    @GetMapping("/{id}/similar")
+    public ResponseEntity<?> getSimilarPrompts(
+            @PathVariable String id,
+            @RequestParam(defaultValue = "duplicate") String mode,
+            @RequestParam(required = false) Double minSimilarity,
+            @RequestParam(defaultValue = "10") int limit) {
+        int boundedLimit = Math.min(Math.max(limit, 1), 100);
+        try {
+            return switch (mode) {
+                case "duplicate" -> ResponseEntity.ok(promptSimilarityService.findSimilar(
+                        id, minSimilarity != null ? minSimilarity : 0.5, boundedLimit));
+                case "semantic" -> ResponseEntity.ok(promptSimilarityService.findSemanticallySimilar(
+                        id, minSimilarity != null ? minSimilarity : PromptSimilarityService.SEMANTIC_THRESHOLD,
+                        boundedLimit));
+                default -> ResponseEntity.badRequest().body("mode must be duplicate or semantic");
+            };
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(e.getMessage());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+    
+    @GetMapping("/{id}/revisions")
+    public ResponseEntity<?> getRevisions(@PathVariable String id) {
+        try {
+            return ResponseEntity.ok(promptRevisionService.getRevisions(id));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+    
+    @GetMapping("/{id}/revisions/{revision}")
+    public ResponseEntity<?> getRevision(@PathVariable String id, @PathVariable int revision) {
+        try {
+            return ResponseEntity.ok(promptRevisionService.getRevision(id, revision));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+    
+    @GetMapping("/{id}/revisions/diff")
+    public ResponseEntity<?> diffRevisions(
+            @PathVariable String id,
+            @RequestParam int from,
+            @RequestParam int to) {
         try {
-            return ResponseEntity.ok(promptService.getPromptById(id));
+            return ResponseEntity.ok(promptRevisionService.diff(id, from, to));
         } catch (IllegalArgumentException e) {
             return ResponseEntity.notFound().build();
         }
     }
     
     @GetMapping("/category/{categoryId}")
-    public ResponseEntity<Page<PromptDto>> getPromptsByCategory(
+    public ResponseEntity<?> getPromptsByCategory(
             @PathVariable String categoryId,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "20") int size) {
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) String fields,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         
-        Pageable pageable = PageRequest.of(page, size);
-        return ResponseEntity.ok(promptService.getPromptsByCategory(categoryId, pageable));
+        try {
+            PromptFields promptFields = fields != null ? PromptFields.parse(fields) : null;
+            
+            if (cursor != null) {
+                PromptCursor promptCursor = PromptCursor.parse(cursor, "createdAt", Sort.Direction.DESC);
+                return conditional(ifNoneMatch, () -> promptFields != null
+                        ? promptFields.select(promptService.getPromptsByCategory(categoryId, promptCursor, pageSize(size)))
+                        : promptService.getPromptsByCategory(categoryId, promptCursor, pageSize(size)));
+            }
+            
+            Pageable pageable = PageRequest.of(page, pageSize(size));
+            return conditional(ifNoneMatch, () -> promptFields != null
+                    ? promptService.getPromptsByCategory(categoryId, pageable, promptFields)
+                    : promptService.getPromptsByCategory(categoryId, pageable));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
     }
     
     @GetMapping("/tag/{tag}")
-    public ResponseEntity<Page<PromptDto>> getPromptsByTag(
+    public ResponseEntity<?> getPromptsByTag(
             @PathVariable String tag,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "20") int size) {
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) String fields,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         
-        Pageable pageable = PageRequest.of(page, size);
-        return ResponseEntity.ok(promptService.getPromptsByTag(tag, pageable));
+        try {
+            PromptFields promptFields = fields != null ? PromptFields.parse(fields) : null;
+            
+            if (cursor != null) {
+                PromptCursor promptCursor = PromptCursor.parse(cursor, "createdAt", Sort.Direction.DESC);
+                return conditional(ifNoneMatch, () -> promptFields != null
+                        ? promptFields.select(promptService.getPromptsByTag(tag, promptCursor, pageSize(size)))
+                        : promptService.getPromptsByTag(tag, promptCursor, pageSize(size)));
+            }
+            
+            Pageable pageable = PageRequest.of(page, pageSize(size));
+            return conditional(ifNoneMatch, () -> promptFields != null
+                    ? promptService.getPromptsByTag(tag, pageable, promptFields)
+                    : promptService.getPromptsByTag(tag, pageable));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+    
+    // Lazy collections load in one query per page only up to the batch fetch size, so pages stop there
+    private static int pageSize(int size) {
+        return Math.min(Math.max(size, 1), PromptService.MAX_BATCH_SIZE);
+    }
+    
+    // The catalogue version covers every prompt and category, so an unchanged version means an
+    // unchanged body for the same URL and the body never has to be built to answer 304.
+    private ResponseEntity<?> conditional(String ifNoneMatch, Supplier<?> body) {
+        return conditional(ifNoneMatch, true, body);
+    }
+    
+    // Usage flushes reorder the popularity listing without a catalogue change, so it is sent unversioned
+    private ResponseEntity<?> conditional(String ifNoneMatch, boolean versioned, Supplier<?> body) {
+        if (!versioned) {
+            return ResponseEntity.ok(body.get());
+        }
+        String etag = "\"" + promptService.getCatalogueVersion() + "\"";
+        if (matches(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        return ResponseEntity.ok().eTag(etag).body(body.get());
+    }
+    
+    // A single prompt comes from the prompt cache and is versioned by its own content, so the ETag always
+    // matches the body sent and costs no query; it goes stale only as long as the cached entry does
+    private ResponseEntity<?> conditionalPrompt(String ifNoneMatch, String id) {
+        PromptDto prompt = promptService.getPromptById(id);
+        String etag = "\"" + Long.toHexString(prompt.getUpdatedAt().toInstant(ZoneOffset.UTC).toEpochMilli())
+                + "-" + Integer.toHexString(prompt.hashCode()) + "\"";
+        if (matches(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        return ResponseEntity.ok().eTag(etag).body(prompt);
+    }
+    
+    private static boolean matches(String ifNoneMatch, String etag) {
+        return ifNoneMatch != null && Arrays.stream(ifNoneMatch.split(","))
+                .map(String::trim)
+                .anyMatch(candidate -> candidate.equals(etag) || candidate.equals("*"));
     }
-}
\ No newline at end of file
+}
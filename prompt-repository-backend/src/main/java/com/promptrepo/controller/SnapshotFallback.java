@@ -0,0 +1,48 @@
+package com.promptrepo.controller;
+
+import com.promptrepo.service.CatalogueSnapshot;
+import com.promptrepo.service.DatabaseAvailability;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Answers catalogue reads from {@link CatalogueSnapshot} when the database cannot be reached. Such
+ * responses carry {@value #SNAPSHOT_HEADER} with the time the snapshot last caught up, and no ETag.
+ */
+@Component
+@RequiredArgsConstructor
+class SnapshotFallback {
+
+    static final String SNAPSHOT_HEADER = "X-Catalogue-Snapshot";
+
+    private final DatabaseAvailability databaseAvailability;
+    private final CatalogueSnapshot catalogueSnapshot;
+
+    ResponseEntity<?> read(Supplier<ResponseEntity<?>> live, Function<CatalogueSnapshot, ?> fromSnapshot) {
+        if (databaseAvailability.isAvailable()) {
+            try {
+                return live.get();
+            } catch (RuntimeException e) {
+                if (!databaseAvailability.reportFailure(e)) {
+                    throw e;
+                }
+            }
+        }
+        try {
+            Object body = fromSnapshot.apply(catalogueSnapshot);
+            return ResponseEntity.ok()
+                    .header(SNAPSHOT_HEADER, String.valueOf(catalogueSnapshot.getRefreshedAt()))
+                    .body(body);
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "5")
+                    .body(e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.promptrepo.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChangeStreamEventDto {
+    // Sent as the SSE id field rather than in the payload
+    @JsonIgnore
+    private String eventId;
+    private String entity;
+    private String type;
+    private String id;
+}
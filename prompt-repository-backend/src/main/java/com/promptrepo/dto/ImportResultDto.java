@@ -0,0 +1,27 @@
+package com.promptrepo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportResultDto {
+    private long imported;
+    private long failed;
+    private List<ImportErrorDto> errors;
+    
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ImportErrorDto {
+        private long index;
+        private String message;
+    }
+}
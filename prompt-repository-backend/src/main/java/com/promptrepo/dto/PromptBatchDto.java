@@ -0,0 +1,17 @@
+package com.promptrepo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PromptBatchDto {
+    private List<PromptDto> prompts;
+    private List<String> missing;
+}
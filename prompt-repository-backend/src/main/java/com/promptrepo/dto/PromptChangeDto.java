@@ -0,0 +1,20 @@
+package com.promptrepo.dto;
+
+import com.promptrepo.event.ChangeType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PromptChangeDto {
+    private String promptId;
+    private ChangeType type;
+    private LocalDateTime changedAt;
+    private PromptDto prompt;
+}
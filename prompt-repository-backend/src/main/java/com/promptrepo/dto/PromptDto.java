@@ -1,5 +1,6 @@
 package com.promptrepo.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -22,6 +23,12 @@ public class PromptDto {
     private Set<PromptVariableDto> variables;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
+    
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String highlight;
+    
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Double similarity;
 }
 
 
@@ -0,0 +1,19 @@
+package com.promptrepo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PromptRevisionDiffDto {
+    private String promptId;
+    private int fromRevision;
+    private int toRevision;
+    private String fromTitle;
+    private String toTitle;
+    private String diff;
+}
@@ -0,0 +1,23 @@
+package com.promptrepo.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PromptRevisionDto {
+    private int revision;
+    private String title;
+    private String description;
+    private String contentHash;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String content;
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,18 @@
+package com.promptrepo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SuggestionsDto {
+    private List<SuggestionDto> titles;
+    private List<SuggestionDto> tags;
+    private List<SuggestionDto> categories;
+}
@@ -0,0 +1,18 @@
+package com.promptrepo.event;
+
+import com.promptrepo.model.Category;
+
+/**
+ * Published when a category is created, edited or deleted. Carries what the in-memory indexes need, so
+ * listeners running after commit do not have to read the category back.
+ */
+public record CategoryChangedEvent(ChangeType type, String id, String name, long promptCount) {
+
+    public static CategoryChangedEvent of(ChangeType type, Category category) {
+        return new CategoryChangedEvent(
+                type,
+                category.getId().toString(),
+                category.getName(),
+                category.getPromptCount() != null ? category.getPromptCount() : 0);
+    }
+}
@@ -0,0 +1,8 @@
+package com.promptrepo.event;
+
+/**
+ * Published when prompts are added to or removed from a category. Only the denormalised prompt count
+ * moves; the category itself is unchanged, so this is kept apart from {@link CategoryChangedEvent}.
+ */
+public record CategoryPromptCountChangedEvent(String id, int delta) {
+}
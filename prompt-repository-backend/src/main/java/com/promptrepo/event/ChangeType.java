@@ -0,0 +1,7 @@
+package com.promptrepo.event;
+
+public enum ChangeType {
+    CREATED,
+    UPDATED,
+    DELETED
+}
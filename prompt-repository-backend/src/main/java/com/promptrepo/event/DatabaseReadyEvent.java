@@ -0,0 +1,9 @@
+package com.promptrepo.event;
+
+/**
+ * Published once, the first time the database answers after startup. Work that needs the database to
+ * warm up (index builds, snapshot catch-up) listens for this rather than for application readiness,
+ * so the service can start and serve from its snapshot while the database is still down.
+ */
+public record DatabaseReadyEvent() {
+}
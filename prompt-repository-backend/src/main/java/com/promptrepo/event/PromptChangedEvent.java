@@ -0,0 +1,36 @@
+package com.promptrepo.event;
+
+import com.promptrepo.model.Category;
+import com.promptrepo.model.Prompt;
+
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Snapshot of a prompt taken inside the writing transaction. Listeners run after commit,
+ * when the entity's lazy collections may no longer be reachable.
+ */
+public record PromptChangedEvent(
+        ChangeType type,
+        String id,
+        String title,
+        String description,
+        String content,
+        Set<String> tags,
+        Set<String> categoryIds) {
+
+    public static PromptChangedEvent of(ChangeType type, Prompt prompt) {
+        return new PromptChangedEvent(
+                type,
+                prompt.getId().toString(),
+                prompt.getTitle(),
+                prompt.getDescription(),
+                prompt.getContent(),
+                prompt.getTags() != null ? Set.copyOf(prompt.getTags()) : Set.of(),
+                prompt.getCategories() != null
+                        ? prompt.getCategories().stream()
+                                .map(category -> category.getId().toString())
+                                .collect(Collectors.toUnmodifiableSet())
+                        : Set.of());
+    }
+}
@@ -0,0 +1,84 @@
+package com.promptrepo.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records SQL statement count, statement time and connection wait per API request, tagged like
+ * {@code http.server.requests}, and logs requests slower than the threshold with their statements.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RequestMetricsFilter extends OncePerRequestFilter {
+    
+    private final MeterRegistry meterRegistry;
+    
+    @Value("${promptrepo.metrics.slow-request-threshold:500ms}")
+    private Duration slowRequestThreshold;
+    
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith("/api/");
+    }
+    
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        RequestSqlStats stats = RequestSqlStats.begin();
+        long start = System.nanoTime();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            RequestSqlStats.end();
+            record(request, response, stats, elapsed);
+        }
+    }
+    
+    private void record(HttpServletRequest request, HttpServletResponse response, RequestSqlStats stats, long elapsed) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        Tags tags = Tags.of("method", request.getMethod(), "uri", pattern != null ? pattern.toString() : "UNKNOWN");
+        
+        DistributionSummary.builder("promptrepo.request.sql.statements")
+                .tags(tags)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry)
+                .record(stats.getStatementCount());
+        Timer.builder("promptrepo.request.sql.time")
+                .tags(tags)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry)
+                .record(stats.getStatementNanos(), TimeUnit.NANOSECONDS);
+        Timer.builder("promptrepo.request.connection.wait")
+                .tags(tags)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry)
+                .record(stats.getConnectionAcquireNanos(), TimeUnit.NANOSECONDS);
+        
+        if (elapsed >= slowRequestThreshold.toNanos()) {
+            log.warn("Slow request {} {} -> {} in {} ms: {} statements, {} ms in SQL, {} ms waiting for connections{}",
+                    request.getMethod(), request.getRequestURI(), response.getStatus(),
+                    TimeUnit.NANOSECONDS.toMillis(elapsed), stats.getStatementCount(),
+                    TimeUnit.NANOSECONDS.toMillis(stats.getStatementNanos()),
+                    TimeUnit.NANOSECONDS.toMillis(stats.getConnectionAcquireNanos()),
+                    stats.getStatements().isEmpty() ? "" : "\n  " + String.join("\n  ", stats.getStatements()));
+        }
+    }
+}
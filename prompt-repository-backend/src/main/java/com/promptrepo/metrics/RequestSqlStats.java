@@ -0,0 +1,65 @@
+package com.promptrepo.metrics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Per-request JDBC accounting, bound to the request thread by {@link RequestMetricsFilter} and fed by
+ * the Hibernate hooks. Outside a request (startup, async export) nothing is bound and recording is a no-op.
+ */
+public final class RequestSqlStats {
+    
+    private static final ThreadLocal<RequestSqlStats> CURRENT = new ThreadLocal<>();
+    private static final int MAX_RECORDED_STATEMENTS = 50;
+    
+    private final List<String> statements = new ArrayList<>();
+    private int statementCount;
+    private long statementNanos;
+    private long connectionAcquireNanos;
+    
+    static RequestSqlStats begin() {
+        RequestSqlStats stats = new RequestSqlStats();
+        CURRENT.set(stats);
+        return stats;
+    }
+    
+    static void end() {
+        CURRENT.remove();
+    }
+    
+    static RequestSqlStats current() {
+        return CURRENT.get();
+    }
+    
+    void recordSql(String sql) {
+        statementCount++;
+        if (statements.size() < MAX_RECORDED_STATEMENTS) {
+            statements.add(sql);
+        }
+    }
+    
+    void recordExecution(long nanos) {
+        statementNanos += nanos;
+    }
+    
+    void recordConnectionAcquire(long nanos) {
+        connectionAcquireNanos += nanos;
+    }
+    
+    public int getStatementCount() {
+        return statementCount;
+    }
+    
+    public long getStatementNanos() {
+        return statementNanos;
+    }
+    
+    public long getConnectionAcquireNanos() {
+        return connectionAcquireNanos;
+    }
+    
+    public List<String> getStatements() {
+        return Collections.unmodifiableList(statements);
+    }
+}
@@ -0,0 +1,49 @@
+package com.promptrepo.metrics;
+
+import org.hibernate.SessionEventListener;
+
+/**
+ * Registered through {@code hibernate.session.events.auto}, one instance per session. Times statement
+ * execution and connection acquisition (which includes any wait on the Hikari pool).
+ */
+public class SqlSessionEventListener implements SessionEventListener {
+    
+    private long executeStart;
+    private long acquireStart;
+    
+    @Override
+    public void jdbcExecuteStatementStart() {
+        executeStart = System.nanoTime();
+    }
+    
+    @Override
+    public void jdbcExecuteStatementEnd() {
+        RequestSqlStats stats = RequestSqlStats.current();
+        if (stats != null) {
+            stats.recordExecution(System.nanoTime() - executeStart);
+        }
+    }
+    
+    @Override
+    public void jdbcExecuteBatchStart() {
+        executeStart = System.nanoTime();
+    }
+    
+    @Override
+    public void jdbcExecuteBatchEnd() {
+        jdbcExecuteStatementEnd();
+    }
+    
+    @Override
+    public void jdbcConnectionAcquisitionStart() {
+        acquireStart = System.nanoTime();
+    }
+    
+    @Override
+    public void jdbcConnectionAcquisitionEnd() {
+        RequestSqlStats stats = RequestSqlStats.current();
+        if (stats != null) {
+            stats.recordConnectionAcquire(System.nanoTime() - acquireStart);
+        }
+    }
+}
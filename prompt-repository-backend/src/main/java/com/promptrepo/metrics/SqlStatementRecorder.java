@@ -0,0 +1,19 @@
+package com.promptrepo.metrics;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Registered through {@code hibernate.session_factory.statement_inspector}; records the SQL of every
+ * statement Hibernate prepares for the current request.
+ */
+public class SqlStatementRecorder implements StatementInspector {
+    
+    @Override
+    public String inspect(String sql) {
+        RequestSqlStats stats = RequestSqlStats.current();
+        if (stats != null) {
+            stats.recordSql(sql);
+        }
+        return sql;
+    }
+}
@@ -2,6 +2,7 @@ package com.promptrepo.model;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.util.Set;
 
@@ -34,4 +35,10 @@ public class Category extends BaseEntity {
     @Column(nullable = false)
     @Builder.Default
     private Integer displayOrder = 0;
+    
+    // Maintained with bulk increments from PromptService, never written by entity flushes
+    @Column(nullable = false, updatable = false)
+    @ColumnDefault("0")
+    @Builder.Default
+    private Integer promptCount = 0;
 }
@@ -2,12 +2,13 @@ package com.promptrepo.model;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.util.HashSet;
 import java.util.Set;
 
 @Entity
-@Table(name = "prompts")
+@Table(name = "prompts", indexes = @Index(name = "idx_prompts_usage_count", columnList = "usage_count"))
 @Getter
 @Setter
 @Builder
@@ -34,7 +35,8 @@ public class Prompt extends BaseEntity {
     private Set<Category> categories = new HashSet<>();
     
     @ElementCollection
-    @CollectionTable(name = "prompt_tags", joinColumns = @JoinColumn(name = "prompt_id"))
+    @CollectionTable(name = "prompt_tags", joinColumns = @JoinColumn(name = "prompt_id"),
+                     indexes = @Index(name = "idx_prompt_tags_tag", columnList = "tag"))
     @Column(name = "tag")
     @Builder.Default
     private Set<String> tags = new HashSet<>();
@@ -42,4 +44,10 @@ public class Prompt extends BaseEntity {
     @OneToMany(mappedBy = "prompt", cascade = CascadeType.ALL, orphanRemoval = true)
     @Builder.Default
     private Set<PromptVariable> variables = new HashSet<>();
+    
+    // Views and renders, added in batches by PromptUsageTracker and never written by entity flushes
+    @Column(nullable = false, updatable = false)
+    @ColumnDefault("0")
+    @Builder.Default
+    private Long usageCount = 0L;
 }
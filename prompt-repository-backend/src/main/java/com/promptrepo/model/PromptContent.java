@@ -0,0 +1,42 @@
+package com.promptrepo.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Deflate-compressed prompt content addressed by the SHA-256 of its text. A {@code DELTA} row holds only
+ * the edited span relative to {@code baseHash}; chains are capped by {@code depth} to bound read cost.
+ */
+@Entity
+@Table(name = "prompt_contents")
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PromptContent {
+    
+    @Id
+    @Column(length = 64)
+    private String hash;
+    
+    @Column(length = 64)
+    private String baseHash;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Encoding encoding;
+    
+    @Column(nullable = false)
+    private int depth;
+    
+    @Column(nullable = false)
+    private int length;
+    
+    @Column(nullable = false)
+    private byte[] data;
+    
+    public enum Encoding {
+        FULL, DELTA
+    }
+}
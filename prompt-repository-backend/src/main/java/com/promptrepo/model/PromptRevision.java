@@ -0,0 +1,41 @@
+package com.promptrepo.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Entity
+@Table(name = "prompt_revisions",
+       uniqueConstraints = @UniqueConstraint(name = "uk_prompt_revisions_prompt_revision",
+                                             columnNames = {"prompt_id", "revision"}))
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PromptRevision {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(nullable = false)
+    private UUID promptId;
+    
+    @Column(nullable = false)
+    private int revision;
+    
+    @Column(nullable = false)
+    private String title;
+    
+    @Column(columnDefinition = "TEXT")
+    private String description;
+    
+    @Column(nullable = false, length = 64)
+    private String contentHash;
+    
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+}
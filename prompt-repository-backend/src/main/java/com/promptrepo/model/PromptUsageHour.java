@@ -0,0 +1,36 @@
+package com.promptrepo.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Uses of one prompt within one clock hour, summed over a window for trending.
+ */
+@Entity
+@Table(name = "prompt_usage_hours",
+       uniqueConstraints = @UniqueConstraint(name = "uk_prompt_usage_hours_prompt_hour",
+                                             columnNames = {"prompt_id", "hour_start"}),
+       indexes = @Index(name = "idx_prompt_usage_hours_hour", columnList = "hour_start"))
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PromptUsageHour {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(nullable = false)
+    private UUID promptId;
+    
+    @Column(nullable = false)
+    private LocalDateTime hourStart;
+    
+    @Column(nullable = false)
+    private long uses;
+}
@@ -2,17 +2,33 @@ package com.promptrepo.repository;
 
 import com.promptrepo.model.Category;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.UUID;
 
 @Repository
-public interface CategoryRepository extends JpaRepository<Category, String> {
+public interface CategoryRepository extends JpaRepository<Category, UUID> {
     
     Optional<Category> findByName(String name);
     
     boolean existsByName(String name);
     
     List<Category> findAllByOrderByDisplayOrderAsc();
+    
+    @Modifying
+    @Query("UPDATE Category c SET c.promptCount = c.promptCount + :delta WHERE c.id IN :ids")
+    int adjustPromptCount(@Param("ids") Collection<UUID> ids, @Param("delta") int delta);
+    
+    @Modifying
+    @Query(value = "UPDATE categories c SET prompt_count = COALESCE(counts.total, 0) " +
+                   "FROM categories c2 LEFT JOIN (SELECT category_id, COUNT(*) AS total " +
+                   "FROM prompt_categories GROUP BY category_id) counts ON counts.category_id = c2.id " +
+                   "WHERE c.id = c2.id", nativeQuery = true)
+    int rebuildPromptCounts();
 }
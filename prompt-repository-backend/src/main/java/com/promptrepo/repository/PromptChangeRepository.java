@@ -0,0 +1,35 @@
+package com.promptrepo.repository;
+
+import com.promptrepo.model.PromptChange;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface PromptChangeRepository extends JpaRepository<PromptChange, Long> {
+    
+    List<PromptChange> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+    
+    @Query("SELECT COALESCE(MAX(c.id), 0) FROM PromptChange c")
+    long findLatestId();
+    
+    // One round trip for everything a listing depends on; numbers, since native aggregates come back
+    // as Long, BigDecimal or Double depending on the column
+    @Query(value = "SELECT (SELECT COALESCE(MAX(id), 0) FROM prompt_changes) AS latestChange, " +
+                   "(SELECT COUNT(*) FROM categories) AS categoryCount, " +
+                   "(SELECT COALESCE(EXTRACT(EPOCH FROM MAX(updated_at)) * 1000, 0) FROM categories) " +
+                   "AS categoriesUpdated",
+           nativeQuery = true)
+    CatalogueStamp findCatalogueStamp();
+    
+    interface CatalogueStamp {
+        Number getLatestChange();
+        
+        Number getCategoryCount();
+        
+        Number getCategoriesUpdated();
+    }
+}
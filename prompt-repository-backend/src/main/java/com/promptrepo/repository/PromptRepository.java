@@ -1,15 +1,28 @@
 package com.promptrepo.repository;
 
 import com.promptrepo.model.Prompt;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
 @Repository
-public interface PromptRepository extends JpaRepository<Prompt, String> {
+public interface PromptRepository extends JpaRepository<Prompt, UUID> {
     
     @Query("SELECT p FROM Prompt p WHERE " +
            "(LOWER(p.title) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
@@ -18,8 +31,72 @@ public interface PromptRepository extends JpaRepository<Prompt, String> {
     Page<Prompt> searchPrompts(@Param("search") String search, Pageable pageable);
     
     @Query("SELECT p FROM Prompt p JOIN p.categories c WHERE c.id = :categoryId")
-    Page<Prompt> findByCategoryId(@Param("categoryId") String categoryId, Pageable pageable);
+    Page<Prompt> findByCategoryId(@Param("categoryId") UUID categoryId, Pageable pageable);
     
     @Query("SELECT p FROM Prompt p JOIN p.tags t WHERE t = :tag")
     Page<Prompt> findByTag(@Param("tag") String tag, Pageable pageable);
+    
+    // Keyset scrolling: seeks past the last row instead of OFFSET and never issues a COUNT
+    Window<Prompt> findAllBy(ScrollPosition position, Sort sort, Limit limit);
+    
+    Window<Prompt> findByCategoriesId(UUID categoryId, ScrollPosition position, Sort sort, Limit limit);
+    
+    Window<Prompt> findByTagsContaining(String tag, ScrollPosition position, Sort sort, Limit limit);
+    
+    @EntityGraph(attributePaths = "variables")
+    Optional<Prompt> findWithVariablesById(UUID id);
+    
+    // Row lock held to commit: concurrent category moves or deletes of one prompt apply their count deltas in turn
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<Prompt> findForUpdateById(UUID id);
+    
+    @Query(value = "SELECT p.id AS id, p.title AS title, p.description AS description, " +
+                   "p.createdAt AS createdAt, p.updatedAt AS updatedAt FROM Prompt p",
+           countQuery = "SELECT COUNT(p) FROM Prompt p")
+    Page<PromptSummary> findSummaries(Pageable pageable);
+    
+    @Query(value = "SELECT p.id AS id, p.title AS title, p.description AS description, " +
+                   "p.createdAt AS createdAt, p.updatedAt AS updatedAt FROM Prompt p JOIN p.categories c " +
+                   "WHERE c.id = :categoryId",
+           countQuery = "SELECT COUNT(p) FROM Prompt p JOIN p.categories c WHERE c.id = :categoryId")
+    Page<PromptSummary> findSummariesByCategoryId(@Param("categoryId") UUID categoryId, Pageable pageable);
+    
+    @Query(value = "SELECT p.id AS id, p.title AS title, p.description AS description, " +
+                   "p.createdAt AS createdAt, p.updatedAt AS updatedAt FROM Prompt p JOIN p.tags t WHERE t = :tag",
+           countQuery = "SELECT COUNT(p) FROM Prompt p JOIN p.tags t WHERE t = :tag")
+    Page<PromptSummary> findSummariesByTag(@Param("tag") String tag, Pageable pageable);
+    
+    @Query("SELECT t AS tag, COUNT(t) AS count FROM Prompt p JOIN p.tags t GROUP BY t ORDER BY COUNT(t) DESC, t")
+    List<TagCount> countTags(Limit limit);
+    
+    @Query("SELECT t AS tag, COUNT(t) AS count FROM Prompt p JOIN p.tags t JOIN p.categories c " +
+           "WHERE c.id = :categoryId GROUP BY t ORDER BY COUNT(t) DESC, t")
+    List<TagCount> countTagsByCategoryId(@Param("categoryId") UUID categoryId, Limit limit);
+    
+    @Query("SELECT p.id AS promptId, t AS tag FROM Prompt p JOIN p.tags t WHERE p.id IN :ids")
+    List<PromptTag> findTagsByPromptIds(@Param("ids") Collection<UUID> ids);
+    
+    interface PromptSummary {
+        UUID getId();
+        
+        String getTitle();
+        
+        String getDescription();
+        
+        LocalDateTime getCreatedAt();
+        
+        LocalDateTime getUpdatedAt();
+    }
+    
+    interface TagCount {
+        String getTag();
+        
+        Long getCount();
+    }
+    
+    interface PromptTag {
+        UUID getPromptId();
+        
+        String getTag();
+    }
 }
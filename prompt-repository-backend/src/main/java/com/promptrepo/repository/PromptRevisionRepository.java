@@ -0,0 +1,17 @@
+package com.promptrepo.repository;
+
+import com.promptrepo.model.PromptRevision;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface PromptRevisionRepository extends JpaRepository<PromptRevision, Long> {
+    
+    List<PromptRevision> findByPromptIdOrderByRevisionDesc(UUID promptId);
+    
+    Optional<PromptRevision> findByPromptIdAndRevision(UUID promptId, int revision);
+}
@@ -0,0 +1,29 @@
+package com.promptrepo.repository;
+
+import com.promptrepo.model.PromptUsageHour;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface PromptUsageHourRepository extends JpaRepository<PromptUsageHour, Long> {
+    
+    @Query("SELECT p.id AS id, p.title AS title, SUM(h.uses) AS uses FROM PromptUsageHour h " +
+           "JOIN Prompt p ON p.id = h.promptId WHERE h.hourStart >= :since " +
+           "GROUP BY p.id, p.title ORDER BY SUM(h.uses) DESC, p.id")
+    List<TrendingPrompt> findTrending(@Param("since") LocalDateTime since, Limit limit);
+    
+    interface TrendingPrompt {
+        UUID getId();
+        
+        String getTitle();
+        
+        long getUses();
+    }
+}
@@ -0,0 +1,115 @@
+package com.promptrepo.search;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Maps prompt text to a fixed-size unit vector by feature hashing, with no model files or network calls.
+ * Features are words, adjacent word pairs and the character trigrams of each word, so prompts that share
+ * vocabulary, phrasing or word stems end up close under cosine similarity even when their wording differs.
+ */
+final class HashingEmbedder {
+
+    static final int DIMENSIONS = 256;
+    // Part of the persisted index header: bump whenever the features or weights change
+    static final int VERSION = 1;
+
+    private static final float TITLE_WEIGHT = 2.0f;
+    private static final float TAG_WEIGHT = 1.5f;
+    private static final float BIGRAM_WEIGHT = 0.5f;
+    private static final float TRIGRAM_WEIGHT = 0.25f;
+    private static final long WORD_SALT = 0x776f7264L;
+    private static final long BIGRAM_SALT = 0x626967726d4cL;
+    private static final long TRIGRAM_SALT = 0x747269676dL;
+
+    // Without corpus statistics, the most frequent English words would otherwise dominate every vector
+    private static final Set<String> STOP_WORDS = Set.of(
+            "the", "and", "or", "of", "to", "in", "on", "for", "with", "as", "at", "by", "from", "is", "are",
+            "be", "was", "were", "it", "its", "this", "that", "these", "those", "an", "you", "your", "we",
+            "our", "they", "their", "he", "she", "his", "her", "not", "but", "if", "then", "so", "do", "does",
+            "can", "will", "should", "would", "into", "about", "any", "all", "each", "which", "what", "who");
+
+    private HashingEmbedder() {
+    }
+
+    /**
+     * Unit-length embedding of a prompt, or null when it has no indexable words.
+     */
+    static float[] embed(String title, String description, String content, Collection<String> tags) {
+        float[] vector = new float[DIMENSIONS];
+        boolean any = addText(vector, title, TITLE_WEIGHT);
+        any |= addText(vector, description, 1.0f);
+        any |= addText(vector, content, 1.0f);
+        if (tags != null) {
+            for (String tag : tags) {
+                any |= addText(vector, tag, TAG_WEIGHT);
+            }
+        }
+        return any ? normalize(vector) : null;
+    }
+
+    /**
+     * Embedding of a free-text query, comparable with {@link #embed} vectors.
+     */
+    static float[] embedQuery(String query) {
+        float[] vector = new float[DIMENSIONS];
+        return addText(vector, query, 1.0f) ? normalize(vector) : null;
+    }
+
+    private static boolean addText(float[] vector, String text, float weight) {
+        List<String> tokens = PromptSearchIndex.tokenize(text);
+        String previous = null;
+        boolean any = false;
+        for (String token : tokens) {
+            if (STOP_WORDS.contains(token)) {
+                previous = null;
+                continue;
+            }
+            any = true;
+            long word = mix(token.hashCode() ^ WORD_SALT);
+            add(vector, word, weight);
+            if (previous != null) {
+                add(vector, mix(mix(previous.hashCode() ^ BIGRAM_SALT) + token.hashCode()), weight * BIGRAM_WEIGHT);
+            }
+            // Boundary markers keep prefixes and suffixes distinct from the middle of a word
+            String padded = "^" + token + "$";
+            for (int i = 0; i + 3 <= padded.length(); i++) {
+                long trigram = ((long) padded.charAt(i) << 32) | ((long) padded.charAt(i + 1) << 16) | padded.charAt(i + 2);
+                add(vector, mix(trigram ^ TRIGRAM_SALT), weight * TRIGRAM_WEIGHT);
+            }
+            previous = token;
+        }
+        return any;
+    }
+
+    // The low bits pick the dimension and a high bit the sign, so collisions cancel out on average
+    private static void add(float[] vector, long hash, float weight) {
+        int dimension = (int) ((hash & 0x7fffffffL) % DIMENSIONS);
+        vector[dimension] += hash < 0 ? -weight : weight;
+    }
+
+    private static float[] normalize(float[] vector) {
+        double norm = 0;
+        for (int i = 0; i < vector.length; i++) {
+            // Dampens repeated terms so one long, repetitive field cannot swamp the rest
+            vector[i] = (float) (Math.signum(vector[i]) * Math.log1p(Math.abs(vector[i])));
+            norm += vector[i] * vector[i];
+        }
+        if (norm == 0) {
+            return null;
+        }
+        float scale = (float) (1 / Math.sqrt(norm));
+        for (int i = 0; i < vector.length; i++) {
+            vector[i] *= scale;
+        }
+        return vector;
+    }
+
+    // Finaliser of SplitMix64
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
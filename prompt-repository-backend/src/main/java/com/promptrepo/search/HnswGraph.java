@@ -0,0 +1,527 @@
+package com.promptrepo.search;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.SplittableRandom;
+
+/**
+ * Hierarchical navigable small world graph (Malkov and Yashunin) over unit vectors, searched by cosine
+ * similarity. A query walks down from a sparse top level to the dense bottom level, so it visits a few
+ * thousand nodes whatever the size of the graph.
+ * <p>
+ * Vectors are kept as one signed byte per dimension plus a per-vector scale, and bottom-level links in one
+ * flat array, which keeps a million prompts at a few hundred megabytes. Removing a node only marks it
+ * deleted: it keeps routing searches but is never returned, until {@link #compacted()} drops it.
+ * Not thread-safe; {@link VectorIndex} guards it with a read-write lock.
+ */
+final class HnswGraph {
+
+    private static final int MAGIC = 0x484e5357;
+    private static final int FORMAT = 1;
+    private static final int MAX_LEVEL = 16;
+
+    private record Candidate(int node, float similarity) {
+    }
+
+    // A quantized vector: dimensions bytes of code starting at offset, times scale
+    private record Query(byte[] code, int offset, float scale) {
+    }
+
+    private static final Comparator<Candidate> BEST_FIRST = (a, b) -> Float.compare(b.similarity(), a.similarity());
+    private static final Comparator<Candidate> WORST_FIRST = (a, b) -> Float.compare(a.similarity(), b.similarity());
+
+    private final int dimensions;
+    // Links per node on the upper levels; the bottom level allows twice as many
+    private final int m;
+    private final int maxM0;
+    private final int efConstruction;
+    private final double levelFactor;
+    private final SplittableRandom random = new SplittableRandom(0x686e7377L);
+
+    private final Map<String, Integer> nodes = new HashMap<>();
+    private int size;
+    private int deletedCount;
+    private String[] ids;
+    private byte[] codes;
+    private float[] scales;
+    private int[] levels;
+    // Per node: link count followed by maxM0 slots
+    private int[] links0;
+    // Per node above the bottom level: for each level from 1 up, link count followed by m slots
+    private int[][] upperLinks;
+    private BitSet deleted = new BitSet();
+    private int entryPoint = -1;
+    private int maxLevel = -1;
+
+    HnswGraph(int dimensions, int m, int efConstruction, int capacity) {
+        this.dimensions = dimensions;
+        this.m = m;
+        this.maxM0 = 2 * m;
+        this.efConstruction = efConstruction;
+        this.levelFactor = 1 / Math.log(m);
+        allocate(Math.max(capacity, 16));
+    }
+
+    int liveCount() {
+        return nodes.size();
+    }
+
+    int deletedCount() {
+        return deletedCount;
+    }
+
+    boolean contains(String id) {
+        return nodes.containsKey(id);
+    }
+
+    void put(String id, float[] vector) {
+        remove(id);
+        insert(id, vector);
+    }
+
+    boolean remove(String id) {
+        Integer node = nodes.remove(id);
+        if (node == null) {
+            return false;
+        }
+        if (nodes.isEmpty()) {
+            // Nothing left to route through; a fresh graph keeps later inserts reachable
+            allocate(16);
+            return true;
+        }
+        deleted.set(node);
+        deletedCount++;
+        return true;
+    }
+
+    /**
+     * Up to {@code k} live nodes closest to {@code query}, closest first, leaving out {@code excludeId}.
+     */
+    List<VectorIndex.Match> search(float[] query, int k, int ef, String excludeId) {
+        if (entryPoint < 0) {
+            return List.of();
+        }
+        byte[] code = new byte[dimensions];
+        float scale = quantize(query, code, 0);
+        return search(code, scale, k, ef, excludeId);
+    }
+
+    private List<VectorIndex.Match> search(byte[] code, float scale, int k, int ef, String excludeId) {
+        Query query = new Query(code, 0, scale);
+        int current = descend(query, entryPoint, maxLevel, 0);
+        List<Candidate> found = searchLevel(query, current, Math.max(ef, k + 1), 0);
+        List<VectorIndex.Match> matches = new ArrayList<>(Math.min(k, found.size()));
+        for (Candidate candidate : found) {
+            if (matches.size() == k) {
+                break;
+            }
+            String id = ids[candidate.node()];
+            if (!id.equals(excludeId)) {
+                matches.add(new VectorIndex.Match(id, candidate.similarity()));
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Same as {@link #search} using the stored vector of {@code id} as the query; empty when it is not indexed.
+     */
+    List<VectorIndex.Match> searchNear(String id, int k, int ef) {
+        Integer node = nodes.get(id);
+        return node != null
+                ? search(Arrays.copyOfRange(codes, node * dimensions, (node + 1) * dimensions), scales[node], k, ef, id)
+                : List.of();
+    }
+
+    /**
+     * A new graph holding only the live nodes, in their original insertion order.
+     */
+    HnswGraph compacted() {
+        HnswGraph compacted = new HnswGraph(dimensions, m, efConstruction, nodes.size());
+        for (int node = 0; node < size; node++) {
+            if (!deleted.get(node)) {
+                compacted.insert(ids[node], decode(node));
+            }
+        }
+        return compacted;
+    }
+
+    HnswGraph copy() {
+        HnswGraph copy = new HnswGraph(dimensions, m, efConstruction, 0);
+        copy.nodes.putAll(nodes);
+        copy.size = size;
+        copy.deletedCount = deletedCount;
+        copy.ids = Arrays.copyOf(ids, size);
+        copy.codes = Arrays.copyOf(codes, size * dimensions);
+        copy.scales = Arrays.copyOf(scales, size);
+        copy.levels = Arrays.copyOf(levels, size);
+        copy.links0 = Arrays.copyOf(links0, size * (maxM0 + 1));
+        copy.upperLinks = new int[size][];
+        for (int node = 0; node < size; node++) {
+            if (upperLinks[node] != null) {
+                copy.upperLinks[node] = upperLinks[node].clone();
+            }
+        }
+        copy.deleted = (BitSet) deleted.clone();
+        copy.entryPoint = entryPoint;
+        copy.maxLevel = maxLevel;
+        return copy;
+    }
+
+    void write(DataOutputStream out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT);
+        out.writeInt(dimensions);
+        out.writeInt(m);
+        out.writeInt(efConstruction);
+        out.writeInt(size);
+        out.writeInt(entryPoint);
+        out.writeInt(maxLevel);
+        for (int node = 0; node < size; node++) {
+            out.writeBoolean(deleted.get(node));
+            out.writeUTF(ids[node]);
+            out.writeFloat(scales[node]);
+            out.write(codes, node * dimensions, dimensions);
+            out.writeByte(levels[node]);
+            writeLinks(out, links0, node * (maxM0 + 1));
+            for (int level = 1; level <= levels[node]; level++) {
+                writeLinks(out, upperLinks[node], (level - 1) * (m + 1));
+            }
+        }
+    }
+
+    static HnswGraph read(DataInputStream in, int expectedDimensions) throws IOException {
+        if (in.readInt() != MAGIC || in.readInt() != FORMAT) {
+            throw new IOException("Not a graph file of a supported format");
+        }
+        int dimensions = in.readInt();
+        if (dimensions != expectedDimensions) {
+            throw new IOException("Graph has " + dimensions + " dimensions, expected " + expectedDimensions);
+        }
+        int m = in.readInt();
+        int efConstruction = in.readInt();
+        int size = in.readInt();
+        HnswGraph graph = new HnswGraph(dimensions, m, efConstruction, size);
+        graph.size = size;
+        graph.entryPoint = in.readInt();
+        graph.maxLevel = in.readInt();
+        for (int node = 0; node < size; node++) {
+            boolean isDeleted = in.readBoolean();
+            graph.ids[node] = in.readUTF();
+            graph.scales[node] = in.readFloat();
+            in.readFully(graph.codes, node * dimensions, dimensions);
+            int level = in.readByte();
+            graph.levels[node] = level;
+            readLinks(in, graph.links0, node * (graph.maxM0 + 1), graph.maxM0);
+            if (level > 0) {
+                graph.upperLinks[node] = new int[level * (m + 1)];
+                for (int l = 1; l <= level; l++) {
+                    readLinks(in, graph.upperLinks[node], (l - 1) * (m + 1), m);
+                }
+            }
+            if (isDeleted) {
+                graph.deleted.set(node);
+                graph.deletedCount++;
+            } else {
+                graph.nodes.put(graph.ids[node], node);
+            }
+        }
+        return graph;
+    }
+
+    private void insert(String id, float[] vector) {
+        ensureCapacity(size + 1);
+        int node = size++;
+        ids[node] = id;
+        scales[node] = quantize(vector, codes, node * dimensions);
+        Query query = new Query(codes, node * dimensions, scales[node]);
+        int level = Math.min(MAX_LEVEL, (int) (-Math.log(1 - random.nextDouble()) * levelFactor));
+        levels[node] = level;
+        if (level > 0) {
+            upperLinks[node] = new int[level * (m + 1)];
+        }
+        nodes.put(id, node);
+
+        if (entryPoint < 0) {
+            entryPoint = node;
+            maxLevel = level;
+            return;
+        }
+
+        int current = descend(query, entryPoint, maxLevel, level);
+        for (int l = Math.min(level, maxLevel); l >= 0; l--) {
+            List<Candidate> candidates = searchLevel(query, current, efConstruction, l);
+            List<Candidate> selected = selectNeighbors(candidates, m);
+            int[] links = links(node, l);
+            int offset = offset(node, l);
+            links[offset] = selected.size();
+            for (int i = 0; i < selected.size(); i++) {
+                links[offset + 1 + i] = selected.get(i).node();
+                connect(selected.get(i).node(), node, l);
+            }
+            if (!candidates.isEmpty()) {
+                current = candidates.get(0).node();
+            }
+        }
+        if (level > maxLevel) {
+            maxLevel = level;
+            entryPoint = node;
+        }
+    }
+
+    // Greedy walk through the levels above targetLevel, returning the closest node found
+    private int descend(Query query, int start, int fromLevel, int targetLevel) {
+        int current = start;
+        float best = similarity(query, current);
+        for (int level = fromLevel; level > targetLevel; level--) {
+            boolean moved = true;
+            while (moved) {
+                moved = false;
+                int[] links = links(current, level);
+                int offset = offset(current, level);
+                for (int i = 0; i < links[offset]; i++) {
+                    int neighbor = links[offset + 1 + i];
+                    float similarity = similarity(query, neighbor);
+                    if (similarity > best) {
+                        best = similarity;
+                        current = neighbor;
+                        moved = true;
+                    }
+                }
+            }
+        }
+        return current;
+    }
+
+    // Best-first search of one level; deleted nodes are walked through but never returned
+    private List<Candidate> searchLevel(Query query, int entry, int ef, int level) {
+        VisitedSet visited = new VisitedSet();
+        PriorityQueue<Candidate> candidates = new PriorityQueue<>(BEST_FIRST);
+        PriorityQueue<Candidate> results = new PriorityQueue<>(WORST_FIRST);
+        visited.add(entry);
+        Candidate start = new Candidate(entry, similarity(query, entry));
+        candidates.add(start);
+        if (!deleted.get(entry)) {
+            results.add(start);
+        }
+
+        while (!candidates.isEmpty()) {
+            Candidate candidate = candidates.poll();
+            if (results.size() >= ef && candidate.similarity() < results.peek().similarity()) {
+                break;
+            }
+            int[] links = links(candidate.node(), level);
+            int offset = offset(candidate.node(), level);
+            for (int i = 0; i < links[offset]; i++) {
+                int neighbor = links[offset + 1 + i];
+                if (!visited.add(neighbor)) {
+                    continue;
+                }
+                float similarity = similarity(query, neighbor);
+                if (results.size() < ef || similarity > results.peek().similarity()) {
+                    Candidate next = new Candidate(neighbor, similarity);
+                    candidates.add(next);
+                    if (!deleted.get(neighbor)) {
+                        results.add(next);
+                        if (results.size() > ef) {
+                            results.poll();
+                        }
+                    }
+                }
+            }
+        }
+
+        List<Candidate> sorted = new ArrayList<>(results);
+        sorted.sort(BEST_FIRST);
+        return sorted;
+    }
+
+    // Keeps a candidate only if it is closer to the base than to every neighbour already kept, which spreads
+    // links across directions instead of spending them all on one tight cluster
+    private List<Candidate> selectNeighbors(List<Candidate> bestFirst, int max) {
+        List<Candidate> selected = new ArrayList<>(max);
+        for (Candidate candidate : bestFirst) {
+            if (selected.size() == max) {
+                break;
+            }
+            if (deleted.get(candidate.node())) {
+                continue;
+            }
+            boolean diverse = true;
+            for (Candidate kept : selected) {
+                if (similarity(candidate.node(), kept.node()) > candidate.similarity()) {
+                    diverse = false;
+                    break;
+                }
+            }
+            if (diverse) {
+                selected.add(candidate);
+            }
+        }
+        return selected;
+    }
+
+    private void connect(int node, int neighbor, int level) {
+        int[] links = links(node, level);
+        int offset = offset(node, level);
+        int capacity = level == 0 ? maxM0 : m;
+        int count = links[offset];
+        if (count < capacity) {
+            links[offset + 1 + count] = neighbor;
+            links[offset] = count + 1;
+            return;
+        }
+
+        List<Candidate> candidates = new ArrayList<>(count + 1);
+        for (int i = 0; i < count; i++) {
+            int existing = links[offset + 1 + i];
+            candidates.add(new Candidate(existing, similarity(node, existing)));
+        }
+        candidates.add(new Candidate(neighbor, similarity(node, neighbor)));
+        candidates.sort(BEST_FIRST);
+        List<Candidate> selected = selectNeighbors(candidates, capacity);
+        links[offset] = selected.size();
+        for (int i = 0; i < selected.size(); i++) {
+            links[offset + 1 + i] = selected.get(i).node();
+        }
+    }
+
+    private int[] links(int node, int level) {
+        return level == 0 ? links0 : upperLinks[node];
+    }
+
+    private int offset(int node, int level) {
+        return level == 0 ? node * (maxM0 + 1) : (level - 1) * (m + 1);
+    }
+
+    private float similarity(Query query, int node) {
+        return dot(query.code(), query.offset(), codes, node * dimensions) * query.scale() * scales[node];
+    }
+
+    private float similarity(int a, int b) {
+        return dot(codes, a * dimensions, codes, b * dimensions) * scales[a] * scales[b];
+    }
+
+    // Integer arithmetic, which the JIT vectorises, unlike an ordered float sum
+    private int dot(byte[] a, int offsetA, byte[] b, int offsetB) {
+        int dot = 0;
+        for (int i = 0; i < dimensions; i++) {
+            dot += a[offsetA + i] * b[offsetB + i];
+        }
+        return dot;
+    }
+
+    // Writes the vector as bytes scaled so its largest component is 127, and returns the scale
+    private float quantize(float[] vector, byte[] target, int offset) {
+        float maxAbs = 0;
+        for (float value : vector) {
+            maxAbs = Math.max(maxAbs, Math.abs(value));
+        }
+        float scale = maxAbs / 127;
+        for (int i = 0; i < dimensions; i++) {
+            target[offset + i] = scale == 0 ? 0 : (byte) Math.round(vector[i] / scale);
+        }
+        return scale;
+    }
+
+    private float[] decode(int node) {
+        float[] vector = new float[dimensions];
+        int base = node * dimensions;
+        for (int i = 0; i < dimensions; i++) {
+            vector[i] = codes[base + i] * scales[node];
+        }
+        return vector;
+    }
+
+    private void allocate(int capacity) {
+        nodes.clear();
+        size = 0;
+        deletedCount = 0;
+        ids = new String[capacity];
+        codes = new byte[capacity * dimensions];
+        scales = new float[capacity];
+        levels = new int[capacity];
+        links0 = new int[capacity * (maxM0 + 1)];
+        upperLinks = new int[capacity][];
+        deleted = new BitSet();
+        entryPoint = -1;
+        maxLevel = -1;
+    }
+
+    private void ensureCapacity(int required) {
+        if (required <= ids.length) {
+            return;
+        }
+        int capacity = Math.max(required, ids.length + (ids.length >> 1));
+        ids = Arrays.copyOf(ids, capacity);
+        codes = Arrays.copyOf(codes, capacity * dimensions);
+        scales = Arrays.copyOf(scales, capacity);
+        levels = Arrays.copyOf(levels, capacity);
+        links0 = Arrays.copyOf(links0, capacity * (maxM0 + 1));
+        upperLinks = Arrays.copyOf(upperLinks, capacity);
+    }
+
+    private static void writeLinks(DataOutputStream out, int[] links, int offset) throws IOException {
+        int count = links[offset];
+        out.writeByte(count);
+        for (int i = 0; i < count; i++) {
+            out.writeInt(links[offset + 1 + i]);
+        }
+    }
+
+    private static void readLinks(DataInputStream in, int[] links, int offset, int capacity) throws IOException {
+        int count = in.readUnsignedByte();
+        if (count > capacity) {
+            throw new IOException("Corrupt graph file");
+        }
+        links[offset] = count;
+        for (int i = 0; i < count; i++) {
+            links[offset + 1 + i] = in.readInt();
+        }
+    }
+
+    // Open-addressing set of node numbers, sized to the handful of nodes one search touches
+    private static final class VisitedSet {
+
+        private int[] table = new int[256];
+        private int size;
+
+        boolean add(int node) {
+            if (2 * (size + 1) > table.length) {
+                int[] old = table;
+                table = new int[old.length * 2];
+                size = 0;
+                for (int key : old) {
+                    if (key != 0) {
+                        insert(key);
+                    }
+                }
+            }
+            return insert(node + 1);
+        }
+
+        private boolean insert(int key) {
+            int mask = table.length - 1;
+            int hash = key * 0x9e3779b9;
+            int i = (hash ^ (hash >>> 16)) & mask;
+            while (table[i] != 0) {
+                if (table[i] == key) {
+                    return false;
+                }
+                i = (i + 1) & mask;
+            }
+            table[i] = key;
+            size++;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package com.promptrepo.search;
+
+import com.promptrepo.event.ChangeType;
+import com.promptrepo.event.DatabaseReadyEvent;
+import com.promptrepo.event.PromptChangedEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Near-duplicate detection over prompt content. Each prompt gets a MinHash signature of its word
+ * 3-shingles, and the signature's bands are hashed into LSH buckets. A lookup only compares prompts
+ * that share at least one bucket, so its cost depends on the number of close matches rather than the
+ * size of the corpus.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MinHashIndex {
+
+    private static final int NUM_HASHES = 64;
+    // 16 bands of 4 rows: pairs above ~0.5 Jaccard similarity almost always share a bucket, pairs below ~0.3 rarely do
+    private static final int BANDS = 16;
+    private static final int ROWS = NUM_HASHES / BANDS;
+    private static final int SHINGLE_SIZE = 3;
+    private static final long[] MULTIPLIERS = new long[NUM_HASHES];
+    private static final long[] OFFSETS = new long[NUM_HASHES];
+
+    static {
+        // Fixed seed, so signatures are comparable across restarts
+        SplittableRandom random = new SplittableRandom(0x6d696e68617368L);
+        for (int i = 0; i < NUM_HASHES; i++) {
+            MULTIPLIERS[i] = random.nextLong() | 1;
+            OFFSETS[i] = random.nextLong();
+        }
+    }
+
+    private final PromptScanner promptScanner;
+
+    private final RebuildBuffer rebuildBuffer = new RebuildBuffer();
+    private final Map<String, int[]> signatures = new HashMap<>();
+    // band number in the high half, hash of the band's rows in the low half -> prompt ids
+    private final Map<Long, Set<String>> buckets = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile boolean ready;
+
+    public record Match(String id, double similarity) {
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    @EventListener(DatabaseReadyEvent.class)
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        rebuildBuffer.start();
+        try {
+            promptScanner.forEachPrompt(prompt -> index(prompt.getId().toString(), prompt.getContent()));
+        } finally {
+            rebuildBuffer.finish(this::apply);
+        }
+
+        ready = true;
+        log.info("MinHash index built with {} prompts in {} ms",
+                signatures.size(), System.currentTimeMillis() - start);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onPromptChanged(PromptChangedEvent event) {
+        if (!rebuildBuffer.offer(event)) {
+            apply(event);
+        }
+    }
+
+    private void apply(PromptChangedEvent event) {
+        if (event.type() == ChangeType.DELETED) {
+            remove(event.id());
+        } else {
+            index(event.id(), event.content());
+        }
+    }
+
+    public void index(String id, String content) {
+        int[] signature = signature(content);
+        lock.writeLock().lock();
+        try {
+            retract(id);
+            if (signature != null) {
+                signatures.put(id, signature);
+                for (int band = 0; band < BANDS; band++) {
+                    buckets.computeIfAbsent(bucketKey(signature, band), key -> new HashSet<>()).add(id);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String id) {
+        lock.writeLock().lock();
+        try {
+            retract(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean contains(String id) {
+        lock.readLock().lock();
+        try {
+            return signatures.containsKey(id);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Prompts whose estimated content similarity to prompt {@code id} is at least {@code minSimilarity}, closest first.
+     */
+    public List<Match> similarTo(String id, double minSimilarity, int limit) {
+        lock.readLock().lock();
+        try {
+            int[] signature = signatures.get(id);
+            return signature != null ? query(signature, id, minSimilarity, limit) : List.of();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Same as {@link #similarTo} for text that is not indexed yet, such as a prompt about to be created.
+     */
+    public List<Match> similarToContent(String content, double minSimilarity, int limit) {
+        int[] signature = signature(content);
+        if (signature == null) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            return query(signature, null, minSimilarity, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private List<Match> query(int[] signature, String excludeId, double minSimilarity, int limit) {
+        Set<String> candidates = new HashSet<>();
+        for (int band = 0; band < BANDS; band++) {
+            candidates.addAll(buckets.getOrDefault(bucketKey(signature, band), Set.of()));
+        }
+        candidates.remove(excludeId);
+
+        List<Match> matches = new ArrayList<>();
+        for (String candidate : candidates) {
+            int[] other = signatures.get(candidate);
+            int agreeing = 0;
+            for (int i = 0; i < NUM_HASHES; i++) {
+                if (signature[i] == other[i]) {
+                    agreeing++;
+                }
+            }
+            double similarity = (double) agreeing / NUM_HASHES;
+            if (similarity >= minSimilarity) {
+                matches.add(new Match(candidate, similarity));
+            }
+        }
+        matches.sort(Comparator.comparingDouble(Match::similarity).reversed().thenComparing(Match::id));
+        return matches.size() > limit ? matches.subList(0, limit) : matches;
+    }
+
+    static int[] signature(String content) {
+        List<String> tokens = PromptSearchIndex.tokenize(content);
+        if (tokens.isEmpty()) {
+            return null;
+        }
+
+        int[] signature = new int[NUM_HASHES];
+        Arrays.fill(signature, Integer.MAX_VALUE);
+        int shingles = Math.max(1, tokens.size() - SHINGLE_SIZE + 1);
+        for (int s = 0; s < shingles; s++) {
+            long shingle = 0;
+            for (int t = s; t < Math.min(tokens.size(), s + SHINGLE_SIZE); t++) {
+                shingle = mix(shingle * 31 + tokens.get(t).hashCode());
+            }
+            for (int i = 0; i < NUM_HASHES; i++) {
+                int hash = (int) (mix(shingle * MULTIPLIERS[i] + OFFSETS[i]) >>> 33);
+                if (hash < signature[i]) {
+                    signature[i] = hash;
+                }
+            }
+        }
+        return signature;
+    }
+
+    private static long bucketKey(int[] signature, int band) {
+        int hash = 1;
+        for (int i = band * ROWS; i < (band + 1) * ROWS; i++) {
+            hash = 31 * hash + signature[i];
+        }
+        return ((long) band << 32) | (hash & 0xffffffffL);
+    }
+
+    // Finaliser of SplitMix64, spreads nearby inputs across the whole range
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    private void retract(String id) {
+        int[] previous = signatures.remove(id);
+        if (previous == null) {
+            return;
+        }
+        for (int band = 0; band < BANDS; band++) {
+            long key = bucketKey(previous, band);
+            Set<String> bucket = buckets.get(key);
+            if (bucket != null) {
+                bucket.remove(id);
+                if (bucket.isEmpty()) {
+                    buckets.remove(key);
+                }
+            }
+        }
+    }
+}
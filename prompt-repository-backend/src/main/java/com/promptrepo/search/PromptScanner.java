@@ -0,0 +1,54 @@
+package com.promptrepo.search;
+
+import com.promptrepo.model.Prompt;
+import com.promptrepo.repository.PromptRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.function.Consumer;
+
+/**
+ * Walks the whole catalogue for index rebuilds, seeking past the last id of each batch instead of paging
+ * with OFFSET, so every batch costs the same and rows inserted meanwhile neither shift nor repeat others.
+ */
+@Component
+@RequiredArgsConstructor
+public class PromptScanner {
+
+    private static final int BATCH_SIZE = 1000;
+
+    private final PromptRepository promptRepository;
+    private final PlatformTransactionManager transactionManager;
+
+    /**
+     * Calls {@code action} for every prompt in id order, which is creation order. Each batch runs in its own
+     * transaction, so lazy collections can be read in {@code action}. Returns the number of prompts visited.
+     */
+    public long forEachPrompt(Consumer<Prompt> action) {
+        // Not read-only, so the walk reads the primary: a lagging replica could return rows older than
+        // changes the index has already applied
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        Sort sort = Sort.by("id");
+        ScrollPosition position = ScrollPosition.keyset();
+        long visited = 0;
+        while (true) {
+            ScrollPosition from = position;
+            Window<Prompt> window = template.execute(status -> {
+                Window<Prompt> batch = promptRepository.findAllBy(from, sort, Limit.of(BATCH_SIZE));
+                batch.forEach(action);
+                return batch;
+            });
+            visited += window.size();
+            if (!window.hasNext() || window.isEmpty()) {
+                return visited;
+            }
+            position = window.positionAt(window.size() - 1);
+        }
+    }
+}
@@ -0,0 +1,519 @@
+package com.promptrepo.search;
+
+import com.promptrepo.event.ChangeType;
+import com.promptrepo.event.DatabaseReadyEvent;
+import com.promptrepo.event.PromptChangedEvent;
+import com.promptrepo.model.Prompt;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.util.HtmlUtils;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted index over prompt title, description, content and tags, ranked with BM25.
+ * Built once at startup and maintained incrementally from committed prompt changes.
+ * <p>
+ * Prompt ids are interned as ints, and each term's postings are two sorted int arrays (docs and
+ * frequencies). A document keeps references to the postings it appears in, so it can be retracted on
+ * update or delete without a second term map. That is about 12 bytes per distinct term in a prompt.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PromptSearchIndex {
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final int TITLE_WEIGHT = 3;
+    private static final int TAG_WEIGHT = 2;
+    private static final int SNIPPET_RADIUS = 60;
+
+    private final PromptScanner promptScanner;
+    private final RebuildBuffer rebuildBuffer = new RebuildBuffer();
+
+    // term -> ids of the documents containing it
+    private final Map<String, Postings> postings = new HashMap<>();
+    // Prompt ids are interned as ints; the arrays below are indexed by that doc number
+    private final Map<String, Integer> docs = new HashMap<>();
+    private String[] docIds = new String[1024];
+    private int[] docLengths = new int[1024];
+    // doc -> postings it appears in, to retract it on update or delete
+    private Postings[][] docPostings = new Postings[1024][];
+    // doc -> raw tags, for tag facets over a result set
+    private String[][] docTags = new String[1024][];
+    private int[] freeDocs = new int[64];
+    private int freeDocCount;
+    private int nextDoc;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private long totalLength;
+    private volatile boolean ready;
+
+    public record SearchResult(List<String> ids, long totalHits) {
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    @EventListener(DatabaseReadyEvent.class)
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        rebuildBuffer.start();
+        try {
+            promptScanner.forEachPrompt(prompt -> index(PromptChangedEvent.of(ChangeType.CREATED, prompt)));
+        } finally {
+            rebuildBuffer.finish(this::apply);
+        }
+
+        ready = true;
+        log.info("Search index built with {} prompts and {} terms in {} ms",
+                docs.size(), postings.size(), System.currentTimeMillis() - start);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onPromptChanged(PromptChangedEvent event) {
+        if (!rebuildBuffer.offer(event)) {
+            apply(event);
+        }
+    }
+
+    private void apply(PromptChangedEvent event) {
+        if (event.type() == ChangeType.DELETED) {
+            remove(event.id());
+        } else {
+            index(event);
+        }
+    }
+
+    public void index(PromptChangedEvent prompt) {
+        Map<String, Integer> termFrequencies = new HashMap<>();
+        addTerms(termFrequencies, prompt.title(), TITLE_WEIGHT);
+        addTerms(termFrequencies, prompt.description(), 1);
+        addTerms(termFrequencies, prompt.content(), 1);
+        for (String tag : prompt.tags()) {
+            addTerms(termFrequencies, tag, TAG_WEIGHT);
+        }
+        int length = termFrequencies.values().stream().mapToInt(Integer::intValue).sum();
+
+        lock.writeLock().lock();
+        try {
+            Integer existing = docs.get(prompt.id());
+            int doc;
+            if (existing != null) {
+                doc = existing;
+                retract(doc);
+            } else {
+                doc = allocate(prompt.id());
+            }
+            Postings[] appearsIn = new Postings[termFrequencies.size()];
+            int i = 0;
+            for (Map.Entry<String, Integer> entry : termFrequencies.entrySet()) {
+                Postings termPostings = postings.computeIfAbsent(entry.getKey(), Postings::new);
+                termPostings.put(doc, entry.getValue());
+                appearsIn[i++] = termPostings;
+            }
+            docPostings[doc] = appearsIn;
+            docLengths[doc] = length;
+            docTags[doc] = prompt.tags().isEmpty() ? null : prompt.tags().toArray(String[]::new);
+            totalLength += length;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String id) {
+        lock.writeLock().lock();
+        try {
+            Integer doc = docs.remove(id);
+            if (doc != null) {
+                retract(doc);
+                docIds[doc] = null;
+                docPostings[doc] = null;
+                docTags[doc] = null;
+                if (freeDocCount == freeDocs.length) {
+                    freeDocs = Arrays.copyOf(freeDocs, freeDocCount * 2);
+                }
+                freeDocs[freeDocCount++] = doc;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public SearchResult search(String query, long offset, int limit) {
+        lock.readLock().lock();
+        try {
+            List<Postings> matched = matchedPostings(query);
+            long totalHits = matched.size() == 1 ? matched.get(0).size : count(matchingDocs(matched));
+            long wanted = offset + limit;
+            if (offset >= totalHits || wanted <= 0) {
+                return new SearchResult(List.of(), totalHits);
+            }
+
+            int[] top = topDocs(matched, (int) Math.min(wanted, totalHits));
+            List<String> ranked = new ArrayList<>(top.length);
+            for (int i = (int) offset; i < top.length; i++) {
+                ranked.add(docIds[top[i]]);
+            }
+            return new SearchResult(ranked, totalHits);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Counts the tags of every prompt matching {@code query}, most frequent first.
+     */
+    public Map<String, Long> tagFacets(String query, int limit) {
+        Map<String, Long> counts = new HashMap<>();
+        lock.readLock().lock();
+        try {
+            // Facets need which prompts match, not how well, so nothing is scored
+            long[] matching = matchingDocs(matchedPostings(query));
+            for (int word = 0; word < matching.length; word++) {
+                for (long bits = matching[word]; bits != 0; bits &= bits - 1) {
+                    int doc = (word << 6) + Long.numberOfTrailingZeros(bits);
+                    if (docTags[doc] != null) {
+                        for (String tag : docTags[doc]) {
+                            counts.merge(tag, 1L, Long::sum);
+                        }
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        Map<String, Long> top = new LinkedHashMap<>();
+        counts.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                .limit(limit)
+                .forEach(entry -> top.put(entry.getKey(), entry.getValue()));
+        return top;
+    }
+
+    /**
+     * Returns a short fragment of the best matching field with query terms wrapped in {@code <em>}. The prompt's
+     * own text is HTML-escaped, so the {@code <em>} tags are the only markup in it.
+     */
+    public String highlight(Prompt prompt, String query) {
+        Set<String> terms = new HashSet<>(tokenize(query));
+        if (terms.isEmpty()) {
+            return null;
+        }
+        for (String text : new String[]{prompt.getTitle(), prompt.getDescription(), prompt.getContent()}) {
+            String fragment = highlight(text, terms);
+            if (fragment != null) {
+                return fragment;
+            }
+        }
+        return null;
+    }
+
+    private String highlight(String text, Set<String> terms) {
+        if (text == null || text.isEmpty()) {
+            return null;
+        }
+
+        List<int[]> matches = new ArrayList<>();
+        int length = text.length();
+        int i = 0;
+        while (i < length) {
+            if (!Character.isLetterOrDigit(text.charAt(i))) {
+                i++;
+                continue;
+            }
+            int start = i;
+            while (i < length && Character.isLetterOrDigit(text.charAt(i))) {
+                i++;
+            }
+            if (terms.contains(text.substring(start, i).toLowerCase(Locale.ROOT))) {
+                matches.add(new int[]{start, i});
+            }
+        }
+        if (matches.isEmpty()) {
+            return null;
+        }
+
+        int from = Math.max(0, matches.get(0)[0] - SNIPPET_RADIUS);
+        int to = Math.min(length, matches.get(0)[1] + SNIPPET_RADIUS);
+        StringBuilder fragment = new StringBuilder(to - from + 16);
+        if (from > 0) {
+            fragment.append("...");
+        }
+        int cursor = from;
+        for (int[] match : matches) {
+            if (match[0] < from || match[1] > to) {
+                continue;
+            }
+            fragment.append(HtmlUtils.htmlEscape(text.substring(cursor, match[0])))
+                    .append("<em>").append(HtmlUtils.htmlEscape(text.substring(match[0], match[1]))).append("</em>");
+            cursor = match[1];
+        }
+        fragment.append(HtmlUtils.htmlEscape(text.substring(cursor, to)));
+        if (to < length) {
+            fragment.append("...");
+        }
+        return fragment.toString();
+    }
+
+    // Callers hold the read lock
+    private List<Postings> matchedPostings(String query) {
+        List<Postings> matched = new ArrayList<>();
+        for (String term : new LinkedHashSet<>(tokenize(query))) {
+            Postings termPostings = postings.get(term);
+            if (termPostings != null) {
+                matched.add(termPostings);
+            }
+        }
+        return matched;
+    }
+
+    // Bitset over doc numbers of every document containing at least one of the terms
+    private long[] matchingDocs(List<Postings> matched) {
+        long[] bits = new long[(nextDoc + 63) >>> 6];
+        for (Postings termPostings : matched) {
+            for (int i = 0; i < termPostings.size; i++) {
+                int doc = termPostings.docs[i];
+                bits[doc >>> 6] |= 1L << doc;
+            }
+        }
+        return bits;
+    }
+
+    private static long count(long[] bits) {
+        long count = 0;
+        for (long word : bits) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    /**
+     * The {@code k} best documents by BM25, best first and ties in id order. Postings are walked a document at
+     * a time with MaxScore pruning: terms whose combined upper bounds cannot lift a document into the current
+     * top {@code k} stop producing candidates, and are only probed for documents the other terms produced.
+     */
+    private int[] topDocs(List<Postings> matched, int k) {
+        int documentCount = docs.size();
+        double averageLength = documentCount == 0 ? 0 : (double) totalLength / documentCount;
+        Cursor[] cursors = new Cursor[matched.size()];
+        for (int i = 0; i < cursors.length; i++) {
+            cursors[i] = new Cursor(matched.get(i), documentCount);
+        }
+        Arrays.sort(cursors, Comparator.comparingDouble(cursor -> cursor.upperBound));
+        // bounds[i] is the most cursors[0..i] together can add to a document's score
+        double[] bounds = new double[cursors.length];
+        for (int i = 0; i < cursors.length; i++) {
+            bounds[i] = (i == 0 ? 0 : bounds[i - 1]) + cursors[i].upperBound;
+        }
+
+        Comparator<Hit> worstFirst = Comparator.<Hit>comparingDouble(Hit::score)
+                .thenComparing(hit -> docIds[hit.doc()], Comparator.reverseOrder());
+        PriorityQueue<Hit> top = new PriorityQueue<>(worstFirst);
+        double threshold = Double.NEGATIVE_INFINITY;
+        int essential = 0;
+        while (true) {
+            while (essential < cursors.length && bounds[essential] < threshold) {
+                essential++;
+            }
+            int doc = Integer.MAX_VALUE;
+            for (int i = essential; i < cursors.length; i++) {
+                doc = Math.min(doc, cursors[i].doc());
+            }
+            if (doc == Integer.MAX_VALUE) {
+                break;
+            }
+
+            double norm = K1 * (1 - B + B * docLengths[doc] / averageLength);
+            double score = 0;
+            for (int i = essential; i < cursors.length; i++) {
+                if (cursors[i].doc() == doc) {
+                    score += cursors[i].score(norm);
+                    cursors[i].position++;
+                }
+            }
+            for (int i = essential - 1; i >= 0 && score + bounds[i] >= threshold; i--) {
+                if (cursors[i].advanceTo(doc) == doc) {
+                    score += cursors[i].score(norm);
+                }
+            }
+
+            if (top.size() < k) {
+                top.add(new Hit(doc, score));
+            } else if (worstFirst.compare(new Hit(doc, score), top.peek()) > 0) {
+                top.poll();
+                top.add(new Hit(doc, score));
+            }
+            if (top.size() == k) {
+                threshold = top.peek().score();
+            }
+        }
+
+        int[] ranked = new int[top.size()];
+        for (int i = ranked.length - 1; i >= 0; i--) {
+            ranked[i] = top.poll().doc();
+        }
+        return ranked;
+    }
+
+    static List<String> tokenize(String text) {
+        if (text == null || text.isEmpty()) {
+            return List.of();
+        }
+        List<String> tokens = new ArrayList<>();
+        int length = text.length();
+        int i = 0;
+        while (i < length) {
+            if (!Character.isLetterOrDigit(text.charAt(i))) {
+                i++;
+                continue;
+            }
+            int start = i;
+            while (i < length && Character.isLetterOrDigit(text.charAt(i))) {
+                i++;
+            }
+            if (i - start > 1) {
+                tokens.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+            }
+        }
+        return tokens;
+    }
+
+    private void addTerms(Map<String, Integer> termFrequencies, String text, int weight) {
+        for (String token : tokenize(text)) {
+            termFrequencies.merge(token, weight, Integer::sum);
+        }
+    }
+
+    private int allocate(String id) {
+        int doc;
+        if (freeDocCount > 0) {
+            doc = freeDocs[--freeDocCount];
+        } else {
+            doc = nextDoc++;
+            if (doc == docIds.length) {
+                int capacity = doc * 2;
+                docIds = Arrays.copyOf(docIds, capacity);
+                docLengths = Arrays.copyOf(docLengths, capacity);
+                docPostings = Arrays.copyOf(docPostings, capacity);
+                docTags = Arrays.copyOf(docTags, capacity);
+            }
+        }
+        docs.put(id, doc);
+        docIds[doc] = id;
+        return doc;
+    }
+
+    // Takes the document out of every term it appeared in; it keeps its doc number
+    private void retract(int doc) {
+        Postings[] appearsIn = docPostings[doc];
+        if (appearsIn == null) {
+            return;
+        }
+        for (Postings termPostings : appearsIn) {
+            termPostings.remove(doc);
+            if (termPostings.size == 0) {
+                postings.remove(termPostings.term);
+            }
+        }
+        totalLength -= docLengths[doc];
+        docLengths[doc] = 0;
+    }
+
+    private record Hit(int doc, double score) {
+    }
+
+    /**
+     * Position in one term's postings during {@link #topDocs}.
+     */
+    private static final class Cursor {
+
+        private final Postings postings;
+        private final double idf;
+        private final double upperBound;
+        private int position;
+
+        Cursor(Postings postings, int documentCount) {
+            this.postings = postings;
+            int df = postings.size;
+            this.idf = Math.log(1 + (documentCount - df + 0.5) / (df + 0.5));
+            // BM25 grows with tf and falls with length, so the shortest possible document bounds it
+            this.upperBound = score(postings.maxFrequency, K1 * (1 - B));
+        }
+
+        int doc() {
+            return position < postings.size ? postings.docs[position] : Integer.MAX_VALUE;
+        }
+
+        // Moves to the first posting at or after doc and returns its doc
+        int advanceTo(int doc) {
+            if (doc() < doc) {
+                int i = Arrays.binarySearch(postings.docs, position, postings.size, doc);
+                position = i >= 0 ? i : -i - 1;
+            }
+            return doc();
+        }
+
+        double score(double norm) {
+            return score(postings.frequencies[position], norm);
+        }
+
+        private double score(int tf, double norm) {
+            return idf * tf * (K1 + 1) / (tf + norm);
+        }
+    }
+
+    /**
+     * Docs containing one term in ascending order, with the weighted term frequency of each alongside.
+     */
+    private static final class Postings {
+
+        private final String term;
+        private int[] docs = new int[2];
+        private int[] frequencies = new int[2];
+        private int size;
+        // Highest frequency ever put; not lowered on remove, so it stays an upper bound
+        private int maxFrequency;
+
+        Postings(String term) {
+            this.term = term;
+        }
+
+        void put(int doc, int frequency) {
+            maxFrequency = Math.max(maxFrequency, frequency);
+            int i = Arrays.binarySearch(docs, 0, size, doc);
+            if (i >= 0) {
+                frequencies[i] = frequency;
+                return;
+            }
+            i = -i - 1;
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                frequencies = Arrays.copyOf(frequencies, size * 2);
+            }
+            System.arraycopy(docs, i, docs, i + 1, size - i);
+            System.arraycopy(frequencies, i, frequencies, i + 1, size - i);
+            docs[i] = doc;
+            frequencies[i] = frequency;
+            size++;
+        }
+
+        void remove(int doc) {
+            int i = Arrays.binarySearch(docs, 0, size, doc);
+            if (i < 0) {
+                return;
+            }
+            System.arraycopy(docs, i + 1, docs, i, size - i - 1);
+            System.arraycopy(frequencies, i + 1, frequencies, i, size - i - 1);
+            size--;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.promptrepo.search;
+
+import com.promptrepo.event.PromptChangedEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Holds the prompt changes committed while an index is rebuilt from the database. The rebuild reads each
+ * prompt at some point during its walk, so a change applied straight away could be overwritten by an older
+ * copy read afterwards, or a deleted prompt brought back. Buffered changes are applied once the walk is
+ * done, in the order they arrived.
+ */
+final class RebuildBuffer {
+
+    private List<PromptChangedEvent> pending;
+
+    synchronized void start() {
+        pending = new ArrayList<>();
+    }
+
+    /**
+     * Keeps {@code event} for later while a rebuild is running. Returns false, keeping nothing, otherwise.
+     */
+    synchronized boolean offer(PromptChangedEvent event) {
+        if (pending == null) {
+            return false;
+        }
+        pending.add(event);
+        return true;
+    }
+
+    /**
+     * Applies the buffered changes, including any that arrive meanwhile, then stops buffering.
+     */
+    void finish(Consumer<PromptChangedEvent> apply) {
+        while (true) {
+            List<PromptChangedEvent> batch;
+            synchronized (this) {
+                if (pending == null) {
+                    return;
+                }
+                if (pending.isEmpty()) {
+                    pending = null;
+                    return;
+                }
+                batch = pending;
+                pending = new ArrayList<>();
+            }
+            batch.forEach(apply);
+        }
+    }
+}
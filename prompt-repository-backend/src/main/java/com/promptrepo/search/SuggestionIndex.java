@@ -0,0 +1,315 @@
+package com.promptrepo.search;
+
+import com.promptrepo.dto.SuggestionDto;
+import com.promptrepo.dto.SuggestionsDto;
+import com.promptrepo.event.CategoryChangedEvent;
+import com.promptrepo.event.CategoryPromptCountChangedEvent;
+import com.promptrepo.event.ChangeType;
+import com.promptrepo.event.DatabaseReadyEvent;
+import com.promptrepo.event.PromptChangedEvent;
+import com.promptrepo.repository.CategoryRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.ToLongFunction;
+import java.util.stream.Collectors;
+
+/**
+ * Prefix completion over prompt titles, tags and category names, held in memory. Titles rank by recency,
+ * tags by how many prompts use them and categories by prompt count. Writers are serialised; readers never
+ * block.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SuggestionIndex {
+
+    // Prefixes up to this length are answered from score-ordered sets; longer ones match few entries
+    private static final int SHORT_PREFIX = 3;
+    private static final char KEY_SEPARATOR = '\u0000';
+
+    private final PromptScanner promptScanner;
+    private final CategoryRepository categoryRepository;
+
+    // created is in epoch milliseconds and orders titles by recency
+    private record TitleEntry(String promptId, String title, Set<String> tags, long created) {
+    }
+
+    private record TagEntry(String tag, long count) {
+    }
+
+    private record CategoryEntry(String id, String name, long promptCount) {
+    }
+
+    // normalised title + separator + promptId -> entry
+    private final RankedMap<TitleEntry> titles = new RankedMap<>(TitleEntry::created);
+    // normalised tag -> entry
+    private final RankedMap<TagEntry> tags = new RankedMap<>(TagEntry::count);
+    // normalised name + separator + categoryId -> entry
+    private final RankedMap<CategoryEntry> categories = new RankedMap<>(CategoryEntry::promptCount);
+    private final Map<String, TitleEntry> prompts = new ConcurrentHashMap<>();
+    private final Map<String, String> categoryKeys = new ConcurrentHashMap<>();
+    private final Lock writeLock = new ReentrantLock();
+    private final RebuildBuffer rebuildBuffer = new RebuildBuffer();
+
+    @EventListener(DatabaseReadyEvent.class)
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        categoryRepository.findAll().forEach(category -> putCategory(category.getId().toString(),
+                category.getName(), category.getPromptCount() != null ? category.getPromptCount() : 0));
+
+        rebuildBuffer.start();
+        try {
+            // Ids of rows created before the move to UUIDv7 are random, so recency comes from createdAt
+            promptScanner.forEachPrompt(prompt -> {
+                long created = prompt.getCreatedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+                putPrompt(prompt.getId().toString(), prompt.getTitle(), prompt.getTags(), created);
+            });
+        } finally {
+            rebuildBuffer.finish(this::apply);
+        }
+
+        log.info("Suggestion index built with {} titles, {} tags and {} categories in {} ms",
+                titles.size(), tags.size(), categories.size(), System.currentTimeMillis() - start);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onPromptChanged(PromptChangedEvent event) {
+        if (!rebuildBuffer.offer(event)) {
+            apply(event);
+        }
+    }
+
+    private void apply(PromptChangedEvent event) {
+        if (event.type() == ChangeType.DELETED) {
+            removePrompt(event.id());
+        } else {
+            putPrompt(event.id(), event.title(), event.tags(), System.currentTimeMillis());
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        if (event.type() == ChangeType.DELETED) {
+            removeCategory(event.id());
+        } else {
+            putCategory(event.id(), event.name(), event.promptCount());
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onCategoryPromptCountChanged(CategoryPromptCountChangedEvent event) {
+        writeLock.lock();
+        try {
+            String key = categoryKeys.get(event.id());
+            CategoryEntry entry = key != null ? categories.get(key) : null;
+            if (entry != null) {
+                categories.put(key, new CategoryEntry(entry.id(), entry.name(),
+                        Math.max(0, entry.promptCount() + event.delta())));
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public SuggestionsDto suggest(String prefix, int limit) {
+        String key = normalize(prefix);
+        return SuggestionsDto.builder()
+                .titles(titles.top(key, limit).stream()
+                        .map(entry -> SuggestionDto.builder()
+                                .id(entry.promptId())
+                                .text(entry.title())
+                                .score(entry.created())
+                                .build())
+                        .collect(Collectors.toList()))
+                .tags(tags.top(key, limit).stream()
+                        .map(entry -> SuggestionDto.builder().text(entry.tag()).score(entry.count()).build())
+                        .collect(Collectors.toList()))
+                .categories(categories.top(key, limit).stream()
+                        .map(entry -> SuggestionDto.builder()
+                                .id(entry.id())
+                                .text(entry.name())
+                                .score(entry.promptCount())
+                                .build())
+                        .collect(Collectors.toList()))
+                .build();
+    }
+
+    private void putPrompt(String id, String title, Set<String> promptTags, long created) {
+        writeLock.lock();
+        try {
+            TitleEntry previous = prompts.get(id);
+            if (previous != null) {
+                titles.remove(titleKey(previous));
+                previous.tags().forEach(tag -> adjustTag(tag, -1));
+            }
+            // Updates keep their original position in the recency order
+            TitleEntry entry = new TitleEntry(id, title, Set.copyOf(promptTags),
+                    previous != null ? previous.created() : created);
+            prompts.put(id, entry);
+            if (title != null) {
+                titles.put(titleKey(entry), entry);
+            }
+            entry.tags().forEach(tag -> adjustTag(tag, 1));
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void removePrompt(String id) {
+        writeLock.lock();
+        try {
+            TitleEntry previous = prompts.remove(id);
+            if (previous != null) {
+                titles.remove(titleKey(previous));
+                previous.tags().forEach(tag -> adjustTag(tag, -1));
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void putCategory(String id, String name, long promptCount) {
+        writeLock.lock();
+        try {
+            String previousKey = categoryKeys.get(id);
+            if (previousKey != null) {
+                categories.remove(previousKey);
+            }
+            String key = normalize(name) + KEY_SEPARATOR + id;
+            categories.put(key, new CategoryEntry(id, name, promptCount));
+            categoryKeys.put(id, key);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void removeCategory(String id) {
+        writeLock.lock();
+        try {
+            String key = categoryKeys.remove(id);
+            if (key != null) {
+                categories.remove(key);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void adjustTag(String tag, int delta) {
+        String key = normalize(tag);
+        TagEntry current = tags.get(key);
+        long count = (current != null ? current.count() : 0) + delta;
+        if (count <= 0) {
+            tags.remove(key);
+        } else {
+            tags.put(key, new TagEntry(current != null ? current.tag() : tag, count));
+        }
+    }
+
+    private static String titleKey(TitleEntry entry) {
+        return normalize(entry.title()) + KEY_SEPARATOR + entry.promptId();
+    }
+
+    private static String normalize(String text) {
+        return text == null ? "" : text.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Entries in key order, plus the same entries ordered by score under every key prefix of up to
+     * {@link #SHORT_PREFIX} characters. A short prefix matches too many keys to rank them all per lookup,
+     * so its best entries are read off the front of its set; a longer prefix ranks its whole key range.
+     * Modified only under the index's write lock.
+     */
+    private static final class RankedMap<T> {
+
+        private record Scored<T>(String key, long score, T value) {
+        }
+
+        private final ToLongFunction<T> score;
+        // Highest score first, ties in key order
+        private final Comparator<Scored<T>> order = Comparator.<Scored<T>>comparingLong(Scored::score)
+                .reversed()
+                .thenComparing(Scored::key);
+        private final ConcurrentSkipListMap<String, T> byKey = new ConcurrentSkipListMap<>();
+        private final Map<String, NavigableSet<Scored<T>>> byPrefix = new ConcurrentHashMap<>();
+
+        RankedMap(ToLongFunction<T> score) {
+            this.score = score;
+        }
+
+        T get(String key) {
+            return byKey.get(key);
+        }
+
+        int size() {
+            return byKey.size();
+        }
+
+        void put(String key, T value) {
+            remove(key);
+            byKey.put(key, value);
+            Scored<T> scored = new Scored<>(key, score.applyAsLong(value), value);
+            for (int length = 0; length <= Math.min(SHORT_PREFIX, key.length()); length++) {
+                byPrefix.computeIfAbsent(key.substring(0, length), prefix -> new ConcurrentSkipListSet<>(order))
+                        .add(scored);
+            }
+        }
+
+        void remove(String key) {
+            T previous = byKey.remove(key);
+            if (previous == null) {
+                return;
+            }
+            Scored<T> scored = new Scored<>(key, score.applyAsLong(previous), previous);
+            for (int length = 0; length <= Math.min(SHORT_PREFIX, key.length()); length++) {
+                String prefix = key.substring(0, length);
+                NavigableSet<Scored<T>> ranked = byPrefix.get(prefix);
+                if (ranked != null) {
+                    ranked.remove(scored);
+                    if (ranked.isEmpty()) {
+                        byPrefix.remove(prefix);
+                    }
+                }
+            }
+        }
+
+        List<T> top(String prefix, int limit) {
+            List<T> result = new ArrayList<>();
+            if (limit <= 0) {
+                return result;
+            }
+            if (prefix.length() <= SHORT_PREFIX) {
+                NavigableSet<Scored<T>> ranked = byPrefix.getOrDefault(prefix, Collections.emptyNavigableSet());
+                for (Scored<T> entry : ranked) {
+                    result.add(entry.value());
+                    if (result.size() == limit) {
+                        break;
+                    }
+                }
+                return result;
+            }
+            // Min-heap of the best entries so far, worst at the head
+            PriorityQueue<Scored<T>> best = new PriorityQueue<>(order.reversed());
+            byKey.subMap(prefix, true, prefix + Character.MAX_VALUE, false).forEach((key, value) -> {
+                best.add(new Scored<>(key, score.applyAsLong(value), value));
+                if (best.size() > limit) {
+                    best.poll();
+                }
+            });
+            best.stream().sorted(order).forEach(entry -> result.add(entry.value()));
+            return result;
+        }
+    }
+}
@@ -0,0 +1,388 @@
+package com.promptrepo.search;
+
+import com.promptrepo.event.ChangeType;
+import com.promptrepo.event.DatabaseReadyEvent;
+import com.promptrepo.event.PromptChangedEvent;
+import com.promptrepo.model.Prompt;
+import com.promptrepo.model.PromptChange;
+import com.promptrepo.repository.PromptChangeRepository;
+import com.promptrepo.repository.PromptRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Semantic nearest-neighbour index over prompts: {@link HashingEmbedder} vectors in an {@link HnswGraph}.
+ * <p>
+ * The graph is saved to disk periodically and on shutdown, together with the prompt change feed position it
+ * reflects. On startup it is loaded and only the prompts changed since then are embedded again; the corpus is
+ * embedded in full only when there is no usable file. Loading and building run in the background, and the
+ * index reports itself not ready until they finish.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class VectorIndex {
+
+    private static final int M = 16;
+    private static final int EF_CONSTRUCTION = 100;
+    private static final int EF_SEARCH = 64;
+    private static final int REBUILD_BATCH_SIZE = 1000;
+    // The graph is rebuilt without deleted nodes once they make up this share of it
+    private static final double COMPACTION_THRESHOLD = 0.25;
+    private static final int MIN_COMPACTION_DELETES = 1000;
+    private static final int FILE_MAGIC = 0x50525643;
+
+    private final PromptRepository promptRepository;
+    private final PromptScanner promptScanner;
+    private final PromptChangeRepository promptChangeRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final TaskExecutor applicationTaskExecutor;
+
+    @Value("${promptrepo.semantic.index-path:data/semantic-index.bin}")
+    private String indexPath;
+
+    @Value("${promptrepo.semantic.save-interval:5m}")
+    private Duration saveInterval;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final RebuildBuffer rebuildBuffer = new RebuildBuffer();
+    private HnswGraph graph = newGraph(0);
+    // Writes that arrive while a compacted copy is being built, replayed onto it before the swap
+    private List<Update> compactionLog;
+    private volatile boolean ready;
+    private volatile boolean dirty;
+    // Change feed position read one save earlier; every change up to it has long since reached the graph
+    private volatile long settledChangeId;
+    private ScheduledExecutorService saver;
+
+    public record Match(String id, double similarity) {
+    }
+
+    private record Update(String id, float[] vector) {
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    @EventListener(DatabaseReadyEvent.class)
+    public void start() {
+        // Loading replaces the graph and both paths read prompts from the database, so changes wait until then
+        rebuildBuffer.start();
+        applicationTaskExecutor.execute(() -> {
+            long start = System.currentTimeMillis();
+            try {
+                if (!load()) {
+                    rebuild();
+                }
+            } catch (RuntimeException e) {
+                log.error("Semantic index could not be built", e);
+                return;
+            } finally {
+                rebuildBuffer.finish(this::apply);
+            }
+            ready = true;
+            log.info("Semantic index ready with {} prompts in {} ms", size(), System.currentTimeMillis() - start);
+        });
+
+        saver = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "semantic-index-save");
+            thread.setDaemon(true);
+            return thread;
+        });
+        saver.scheduleWithFixedDelay(this::save, saveInterval.toMillis(), saveInterval.toMillis(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onPromptChanged(PromptChangedEvent event) {
+        if (!rebuildBuffer.offer(event)) {
+            apply(event);
+        }
+    }
+
+    /**
+     * Prompts closest in meaning to free-text {@code query}, closest first.
+     */
+    public List<Match> search(String query, int limit) {
+        float[] vector = HashingEmbedder.embedQuery(query);
+        if (vector == null) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            return graph.search(vector, limit, Math.max(EF_SEARCH, limit), null);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Prompts closest in meaning to prompt {@code id}, closest first; empty when it is not indexed.
+     */
+    public List<Match> similarTo(String id, int limit) {
+        lock.readLock().lock();
+        try {
+            return graph.searchNear(id, limit, Math.max(EF_SEARCH, limit));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean contains(String id) {
+        lock.readLock().lock();
+        try {
+            return graph.contains(id);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private int size() {
+        lock.readLock().lock();
+        try {
+            return graph.liveCount();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void apply(PromptChangedEvent event) {
+        apply(new Update(event.id(), event.type() == ChangeType.DELETED ? null
+                : HashingEmbedder.embed(event.title(), event.description(), event.content(), event.tags())));
+    }
+
+    private void apply(Update update) {
+        boolean compact;
+        lock.writeLock().lock();
+        try {
+            applyTo(graph, update);
+            if (compactionLog != null) {
+                compactionLog.add(update);
+            }
+            dirty = true;
+            compact = compactionLog == null && graph.deletedCount() >= MIN_COMPACTION_DELETES
+                    && graph.deletedCount() > COMPACTION_THRESHOLD * (graph.liveCount() + graph.deletedCount());
+            if (compact) {
+                compactionLog = new ArrayList<>();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (compact) {
+            applicationTaskExecutor.execute(this::compact);
+        }
+    }
+
+    private static void applyTo(HnswGraph target, Update update) {
+        if (update.vector() == null) {
+            target.remove(update.id());
+        } else {
+            target.put(update.id(), update.vector());
+        }
+    }
+
+    private void compact() {
+        long start = System.currentTimeMillis();
+        HnswGraph source;
+        lock.readLock().lock();
+        try {
+            source = graph.copy();
+        } finally {
+            lock.readLock().unlock();
+        }
+        HnswGraph compacted = null;
+        try {
+            compacted = source.compacted();
+        } finally {
+            lock.writeLock().lock();
+            try {
+                if (compacted != null) {
+                    for (Update update : compactionLog) {
+                        applyTo(compacted, update);
+                    }
+                    graph = compacted;
+                }
+                compactionLog = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        log.info("Semantic index compacted in {} ms", System.currentTimeMillis() - start);
+    }
+
+    private void rebuild() {
+        // Read before the prompts, so any change after it is covered by events or the next startup's replay
+        long changeId = promptChangeRepository.findLatestId();
+        promptScanner.forEachPrompt(this::index);
+        settledChangeId = changeId;
+        dirty = true;
+    }
+
+    // Loads the saved graph and catches it up with the change feed; false when there is nothing usable to load
+    private boolean load() {
+        Path path = Path.of(indexPath);
+        long savedChangeId;
+        HnswGraph loaded;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path), 1 << 16))) {
+            if (in.readInt() != FILE_MAGIC || in.readInt() != HashingEmbedder.VERSION) {
+                log.info("Semantic index file {} is from another version, rebuilding", path);
+                return false;
+            }
+            savedChangeId = in.readLong();
+            loaded = HnswGraph.read(in, HashingEmbedder.DIMENSIONS);
+        } catch (NoSuchFileException e) {
+            return false;
+        } catch (IOException e) {
+            log.warn("Semantic index file {} could not be read, rebuilding: {}", path, e.getMessage());
+            return false;
+        }
+
+        long changeId = promptChangeRepository.findLatestId();
+        if (savedChangeId > changeId) {
+            log.info("Semantic index file {} is ahead of the change feed, rebuilding", path);
+            return false;
+        }
+        lock.writeLock().lock();
+        try {
+            graph = loaded;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        int replayed = replay(savedChangeId);
+        settledChangeId = changeId;
+        dirty = replayed > 0;
+        log.info("Semantic index loaded from {}, {} prompts changed since it was saved", path, replayed);
+        return true;
+    }
+
+    private int replay(long afterChangeId) {
+        Set<UUID> changed = new LinkedHashSet<>();
+        long position = afterChangeId;
+        while (true) {
+            List<PromptChange> changes =
+                    promptChangeRepository.findByIdGreaterThanOrderByIdAsc(position, Limit.of(REBUILD_BATCH_SIZE));
+            changes.forEach(change -> changed.add(change.getPromptId()));
+            if (changes.size() < REBUILD_BATCH_SIZE) {
+                break;
+            }
+            position = changes.get(changes.size() - 1).getId();
+        }
+
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setReadOnly(true);
+        List<UUID> ids = new ArrayList<>(changed);
+        for (int from = 0; from < ids.size(); from += REBUILD_BATCH_SIZE) {
+            List<UUID> batch = ids.subList(from, Math.min(ids.size(), from + REBUILD_BATCH_SIZE));
+            template.executeWithoutResult(status -> {
+                Set<UUID> missing = new LinkedHashSet<>(batch);
+                promptRepository.findAllById(batch).forEach(prompt -> {
+                    missing.remove(prompt.getId());
+                    index(prompt);
+                });
+                missing.forEach(id -> apply(new Update(id.toString(), null)));
+            });
+        }
+        return changed.size();
+    }
+
+    private void index(Prompt prompt) {
+        apply(new Update(prompt.getId().toString(), HashingEmbedder.embed(
+                prompt.getTitle(), prompt.getDescription(), prompt.getContent(), prompt.getTags())));
+    }
+
+    // Runs on the save thread only
+    private void save() {
+        try {
+            long changeId = promptChangeRepository.findLatestId();
+            if (ready && dirty) {
+                write(settledChangeId);
+            }
+            settledChangeId = changeId;
+        } catch (RuntimeException e) {
+            log.warn("Semantic index could not be saved: {}", e.getMessage());
+        }
+    }
+
+    private void write(long changeId) {
+        HnswGraph snapshot;
+        lock.readLock().lock();
+        try {
+            snapshot = graph.copy();
+            dirty = false;
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        long start = System.currentTimeMillis();
+        Path path = Path.of(indexPath).toAbsolutePath();
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try {
+            Files.createDirectories(path.getParent());
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(temporary), 1 << 16))) {
+                out.writeInt(FILE_MAGIC);
+                out.writeInt(HashingEmbedder.VERSION);
+                out.writeLong(changeId);
+                snapshot.write(out);
+            }
+            // Readers only ever see a complete file
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            dirty = true;
+            log.warn("Semantic index could not be written to {}: {}", path, e.getMessage());
+            return;
+        }
+        log.debug("Semantic index saved to {} in {} ms", path, System.currentTimeMillis() - start);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (saver == null) {
+            return;
+        }
+        saver.shutdown();
+        try {
+            if (saver.awaitTermination(30, TimeUnit.SECONDS) && ready && dirty) {
+                write(settledChangeId);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static HnswGraph newGraph(int capacity) {
+        return new HnswGraph(HashingEmbedder.DIMENSIONS, M, EF_CONSTRUCTION, capacity);
+    }
+}
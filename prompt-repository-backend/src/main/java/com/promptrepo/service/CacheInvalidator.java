@@ -0,0 +1,67 @@
+package com.promptrepo.service;
+
+import com.promptrepo.config.CacheConfig;
+import com.promptrepo.dto.PromptDto;
+import com.promptrepo.event.CategoryChangedEvent;
+import com.promptrepo.event.CategoryPromptCountChangedEvent;
+import com.promptrepo.event.PromptChangedEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Evicts cached DTOs once the write that changed them has committed, so the next read on this node
+ * reloads from the database.
+ */
+@Component
+@RequiredArgsConstructor
+public class CacheInvalidator {
+    
+    private final CacheManager cacheManager;
+    
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onPromptChanged(PromptChangedEvent event) {
+        evict(CacheConfig.PROMPTS, event.id());
+    }
+    
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        evict(CacheConfig.CATEGORIES, event.id());
+        Cache categoryList = cacheManager.getCache(CacheConfig.CATEGORY_LIST);
+        if (categoryList != null) {
+            categoryList.clear();
+        }
+        
+        // Cached prompts embed their categories, so drop only the ones that reference this category
+        Cache prompts = cacheManager.getCache(CacheConfig.PROMPTS);
+        if (prompts instanceof CaffeineCache caffeineCache) {
+            caffeineCache.getNativeCache().asMap().values().removeIf(value ->
+                    value instanceof PromptDto prompt && prompt.getCategories() != null
+                            && prompt.getCategories().stream().anyMatch(c -> event.id().equals(c.getId())));
+        } else if (prompts != null) {
+            prompts.clear();
+        }
+    }
+    
+    // Only the category DTOs show the count as it moves; prompts embedding the category keep the count
+    // they were cached with until they expire, rather than a scan of the prompt cache on every create
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onCategoryPromptCountChanged(CategoryPromptCountChangedEvent event) {
+        evict(CacheConfig.CATEGORIES, event.id());
+        Cache categoryList = cacheManager.getCache(CacheConfig.CATEGORY_LIST);
+        if (categoryList != null) {
+            categoryList.clear();
+        }
+    }
+    
+    private void evict(String cacheName, String key) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache != null) {
+            cache.evict(key);
+        }
+    }
+}
@@ -0,0 +1,445 @@
+package com.promptrepo.service;
+
+import com.promptrepo.dto.CategoryDto;
+import com.promptrepo.dto.PromptDto;
+import com.promptrepo.event.DatabaseReadyEvent;
+import com.promptrepo.model.PromptChange;
+import com.promptrepo.repository.CategoryRepository;
+import com.promptrepo.repository.PromptChangeRepository;
+import com.promptrepo.repository.PromptRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Read-only copy of the prompt and category catalogue in a memory-mapped file, served while the database
+ * cannot be reached.
+ * <p>
+ * The file is mapped when the application starts, before the database has been contacted, so the
+ * catalogue can be read straight away. Once the database answers, prompts changed since the file was
+ * written are read from the change feed and kept beside it, and every save interval the two are merged
+ * into a new file. Without a usable file, one is written from the database in the background.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CatalogueSnapshot {
+
+    private static final int BATCH_SIZE = 1000;
+    private static final Sort LISTING_SORT = Sort.by(Sort.Direction.DESC, "createdAt");
+    // Marks a prompt deleted since the file was written
+    private static final byte[] DELETED = new byte[0];
+    private static final byte[] SKIPPED = new byte[0];
+    // Newest first, as the file itself is ordered
+    private static final Comparator<byte[]> LISTING_ORDER = Comparator
+            .comparingLong(CatalogueSnapshotFile::createdAtSeconds)
+            .thenComparingInt(CatalogueSnapshotFile::createdAtNanos)
+            .thenComparing(CatalogueSnapshotFile::promptId)
+            .reversed();
+
+    private final PromptRepository promptRepository;
+    private final CategoryRepository categoryRepository;
+    private final PromptChangeRepository promptChangeRepository;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${promptrepo.snapshot.path:data/catalogue-snapshot.bin}")
+    private String snapshotPath;
+
+    @Value("${promptrepo.snapshot.refresh-interval:30s}")
+    private Duration refreshInterval;
+
+    @Value("${promptrepo.snapshot.save-interval:10m}")
+    private Duration saveInterval;
+
+    // The mapped file and the prompts changed since it was written, replaced together after each save
+    private volatile State state;
+    private volatile Categories categories = new Categories(List.of(), Map.of());
+    private volatile Instant refreshedAt;
+    // Owned by the snapshot thread, and by shutdown once that thread has stopped
+    private long appliedChangeId;
+    private boolean dirty;
+    private ScheduledExecutorService worker;
+
+    private record State(CatalogueSnapshotFile file, Map<UUID, byte[]> changes) {
+    }
+
+    private record Categories(List<byte[]> records, Map<UUID, CategoryDto> byId) {
+
+        static Categories of(List<byte[]> records) {
+            Map<UUID, CategoryDto> byId = new LinkedHashMap<>();
+            records.forEach(record -> {
+                CategoryDto category = CatalogueSnapshotFile.decodeCategory(record);
+                byId.put(UUID.fromString(category.getId()), category);
+            });
+            return new Categories(records, byId);
+        }
+    }
+
+    public boolean isLoaded() {
+        return state != null;
+    }
+
+    /**
+     * When the snapshot last caught up with the database.
+     */
+    public Instant getRefreshedAt() {
+        return refreshedAt;
+    }
+
+    public PromptDto getPrompt(String id) {
+        State current = requireState();
+        UUID uuid = Ids.parse(id);
+        byte[] record = current.changes().get(uuid);
+        if (record == null) {
+            record = current.file().find(uuid);
+        }
+        if (record == null || record == DELETED) {
+            throw new IllegalArgumentException("Prompt not found");
+        }
+        return CatalogueSnapshotFile.decodePrompt(record, categories.byId());
+    }
+
+    /**
+     * Newest-first page of prompts; other orders need the database.
+     */
+    public Page<PromptDto> getPrompts(Pageable pageable) {
+        State current = requireState();
+        if (pageable.getSort().isSorted() && !pageable.getSort().equals(LISTING_SORT)) {
+            throw new IllegalStateException("Only newest-first listings are available while the database is unreachable");
+        }
+        Listing listing = new Listing(current);
+        listing.skip(pageable.getOffset());
+        Map<UUID, CategoryDto> categoryById = categories.byId();
+        List<PromptDto> content = new ArrayList<>(pageable.getPageSize());
+        byte[] record;
+        while (content.size() < pageable.getPageSize() && (record = listing.next(true)) != null) {
+            content.add(CatalogueSnapshotFile.decodePrompt(record, categoryById));
+        }
+        return new PageImpl<>(content, pageable, listing.total());
+    }
+
+    public List<CategoryDto> getCategories() {
+        requireState();
+        return List.copyOf(categories.byId().values());
+    }
+
+    public CategoryDto getCategory(String id) {
+        requireState();
+        CategoryDto category = categories.byId().get(Ids.parse(id));
+        if (category == null) {
+            throw new IllegalArgumentException("Category not found");
+        }
+        return category;
+    }
+
+    private State requireState() {
+        State current = state;
+        if (current == null) {
+            throw new IllegalStateException("Database unreachable and no catalogue snapshot available");
+        }
+        return current;
+    }
+
+    @PostConstruct
+    void map() {
+        long start = System.currentTimeMillis();
+        Path path = Path.of(snapshotPath);
+        CatalogueSnapshotFile file;
+        try {
+            file = CatalogueSnapshotFile.open(path);
+        } catch (NoSuchFileException e) {
+            return;
+        } catch (IOException e) {
+            log.warn("Catalogue snapshot {} could not be read, writing a new one: {}", path, e.getMessage());
+            return;
+        }
+        if (file == null) {
+            log.info("Catalogue snapshot {} is from another version, writing a new one", path);
+            return;
+        }
+        categories = Categories.of(file.categories());
+        appliedChangeId = file.changeId();
+        refreshedAt = file.savedAt();
+        state = new State(file, new ConcurrentHashMap<>());
+        log.info("Catalogue snapshot {} mapped with {} prompts saved at {} in {} ms",
+                path, file.size(), file.savedAt(), System.currentTimeMillis() - start);
+    }
+
+    @EventListener(DatabaseReadyEvent.class)
+    public void start() {
+        worker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "catalogue-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        worker.scheduleWithFixedDelay(this::refresh, 0, refreshInterval.toMillis(), TimeUnit.MILLISECONDS);
+        worker.scheduleWithFixedDelay(this::save, saveInterval.toMillis(), saveInterval.toMillis(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    // Runs on the snapshot thread only
+    private void refresh() {
+        try {
+            long latestChangeId = promptChangeRepository.findLatestId();
+            if (state == null || appliedChangeId > latestChangeId) {
+                if (state != null) {
+                    log.info("Catalogue snapshot is ahead of the change feed, writing a new one");
+                }
+                rebuild(latestChangeId);
+            }
+            catchUp();
+            reloadCategories();
+            refreshedAt = Instant.now();
+        } catch (IOException | RuntimeException e) {
+            log.warn("Catalogue snapshot could not be refreshed: {}", e.getMessage());
+        }
+    }
+
+    private void catchUp() {
+        Set<UUID> changed = new LinkedHashSet<>();
+        long position = appliedChangeId;
+        while (true) {
+            List<PromptChange> changes =
+                    promptChangeRepository.findByIdGreaterThanOrderByIdAsc(position, Limit.of(BATCH_SIZE));
+            if (changes.isEmpty()) {
+                break;
+            }
+            changes.forEach(change -> changed.add(change.getPromptId()));
+            position = changes.get(changes.size() - 1).getId();
+            if (changes.size() < BATCH_SIZE) {
+                break;
+            }
+        }
+
+        Map<UUID, byte[]> target = state.changes();
+        TransactionTemplate template = readOnlyTemplate();
+        List<UUID> ids = new ArrayList<>(changed);
+        for (int from = 0; from < ids.size(); from += BATCH_SIZE) {
+            List<UUID> batch = ids.subList(from, Math.min(ids.size(), from + BATCH_SIZE));
+            template.executeWithoutResult(status -> {
+                Set<UUID> missing = new LinkedHashSet<>(batch);
+                promptRepository.findAllById(batch).forEach(prompt -> {
+                    missing.remove(prompt.getId());
+                    target.put(prompt.getId(), CatalogueSnapshotFile.encode(prompt));
+                });
+                missing.forEach(id -> target.put(id, DELETED));
+            });
+        }
+        appliedChangeId = position;
+        dirty |= !changed.isEmpty();
+    }
+
+    private void reloadCategories() {
+        List<byte[]> records = readOnlyTemplate().execute(status -> categoryRepository.findAllByOrderByDisplayOrderAsc()
+                .stream()
+                .map(CatalogueSnapshotFile::encode)
+                .toList());
+        Categories reloaded = Categories.of(records);
+        if (!reloaded.byId().equals(categories.byId())) {
+            categories = reloaded;
+            dirty = true;
+        }
+    }
+
+    // Writes the whole catalogue from the database, newest first; changes made meanwhile are caught up after
+    private void rebuild(long changeId) throws IOException {
+        long start = System.currentTimeMillis();
+        reloadCategories();
+        Sort sort = LISTING_SORT.and(Sort.by(Sort.Direction.DESC, "id"));
+        TransactionTemplate template = readOnlyTemplate();
+        write(changeId, writer -> {
+            ScrollPosition position = ScrollPosition.keyset();
+            boolean hasNext = true;
+            while (hasNext) {
+                ScrollPosition from = position;
+                Window<byte[]> window = template.execute(status ->
+                        promptRepository.findAllBy(from, sort, Limit.of(BATCH_SIZE)).map(CatalogueSnapshotFile::encode));
+                for (byte[] record : window) {
+                    writer.addPrompt(record);
+                }
+                hasNext = window.hasNext() && !window.isEmpty();
+                if (hasNext) {
+                    position = window.positionAt(window.size() - 1);
+                }
+            }
+        });
+        appliedChangeId = changeId;
+        log.info("Catalogue snapshot written from the database with {} prompts in {} ms",
+                state.file().size(), System.currentTimeMillis() - start);
+    }
+
+    // Runs on the snapshot thread, or on shutdown after it has stopped
+    private void save() {
+        State current = state;
+        if (current == null || !dirty) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        try {
+            write(appliedChangeId, writer -> {
+                Listing listing = new Listing(current);
+                byte[] record;
+                while ((record = listing.next(true)) != null) {
+                    writer.addPrompt(record);
+                }
+            });
+        } catch (IOException | RuntimeException e) {
+            log.warn("Catalogue snapshot could not be saved: {}", e.getMessage());
+            return;
+        }
+        log.debug("Catalogue snapshot saved with {} prompts in {} ms",
+                state.file().size(), System.currentTimeMillis() - start);
+    }
+
+    private interface PromptSource {
+        void writeTo(CatalogueSnapshotFile.Writer writer) throws IOException;
+    }
+
+    private void write(long changeId, PromptSource prompts) throws IOException {
+        Path path = Path.of(snapshotPath).toAbsolutePath();
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        Files.createDirectories(path.getParent());
+        try (CatalogueSnapshotFile.Writer writer = new CatalogueSnapshotFile.Writer(temporary)) {
+            prompts.writeTo(writer);
+            for (byte[] category : categories.records()) {
+                writer.addCategory(category);
+            }
+            writer.finish(changeId, Instant.now());
+        }
+        // Readers only ever map a complete file; the previous mapping stays valid until it is collected
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        CatalogueSnapshotFile file = CatalogueSnapshotFile.open(path);
+        if (file == null) {
+            throw new IOException("Snapshot written with an unexpected header");
+        }
+        state = new State(file, new ConcurrentHashMap<>());
+        dirty = false;
+    }
+
+    private TransactionTemplate readOnlyTemplate() {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setReadOnly(true);
+        return template;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (worker == null) {
+            return;
+        }
+        worker.shutdown();
+        try {
+            if (worker.awaitTermination(30, TimeUnit.SECONDS)) {
+                save();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Walks the file in listing order with the changes since it was written merged in: deleted prompts are
+     * skipped, updated ones read from the changes, and new ones slotted in by creation time.
+     */
+    private static final class Listing {
+
+        private final CatalogueSnapshotFile file;
+        private final Map<UUID, byte[]> changes;
+        private final List<byte[]> added = new ArrayList<>();
+        private final int deleted;
+        private int position;
+        private int addedIndex;
+
+        Listing(State state) {
+            file = state.file();
+            // Copied, as the snapshot thread may be adding to it
+            changes = Map.copyOf(state.changes());
+            int deletedFromFile = 0;
+            for (Map.Entry<UUID, byte[]> change : changes.entrySet()) {
+                boolean inFile = file.contains(change.getKey());
+                if (change.getValue() == DELETED) {
+                    deletedFromFile += inFile ? 1 : 0;
+                } else if (!inFile) {
+                    added.add(change.getValue());
+                }
+            }
+            added.sort(LISTING_ORDER);
+            deleted = deletedFromFile;
+        }
+
+        void skip(long count) {
+            for (long i = 0; i < count && next(false) != null; i++) {
+                // only the position moves
+            }
+        }
+
+        long total() {
+            return (long) file.size() - deleted + added.size();
+        }
+
+        /**
+         * The next prompt's record, or null after the last one. Without {@code read}, records still in the
+         * file are passed over without being copied out and a placeholder is returned.
+         */
+        byte[] next(boolean read) {
+            while (position < file.size()) {
+                UUID id = file.idAt(position);
+                byte[] change = changes.get(id);
+                if (change == DELETED) {
+                    position++;
+                    continue;
+                }
+                if (addedIndex < added.size() && precedes(added.get(addedIndex), position)) {
+                    break;
+                }
+                position++;
+                return change != null ? change : read ? file.get(position - 1) : SKIPPED;
+            }
+            return addedIndex < added.size() ? added.get(addedIndex++) : null;
+        }
+
+        private boolean precedes(byte[] record, int filePosition) {
+            int cmp = Long.compare(CatalogueSnapshotFile.createdAtSeconds(record), file.createdAtSecondsAt(filePosition));
+            if (cmp == 0) {
+                cmp = Integer.compare(CatalogueSnapshotFile.createdAtNanos(record), file.createdAtNanosAt(filePosition));
+            }
+            if (cmp == 0) {
+                cmp = CatalogueSnapshotFile.promptId(record).compareTo(file.idAt(filePosition));
+            }
+            return cmp > 0;
+        }
+    }
+}
@@ -0,0 +1,507 @@
+package com.promptrepo.service;
+
+import com.promptrepo.dto.CategoryDto;
+import com.promptrepo.dto.PromptDto;
+import com.promptrepo.dto.PromptVariableDto;
+import com.promptrepo.model.Category;
+import com.promptrepo.model.Prompt;
+import com.promptrepo.model.PromptVariable;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Binary catalogue snapshot, read in place through read-only memory mappings.
+ * <p>
+ * Layout: a fixed header, the prompt records in listing order (newest first), the category records,
+ * then two tables of longs: the record offsets in listing order, and (id, offset) pairs sorted by id
+ * for lookups. Each record is an int length and its payload. Opening the file maps it and reads the
+ * header and categories; a prompt is decoded only when it is read.
+ */
+final class CatalogueSnapshotFile {
+
+    static final int MAGIC = 0x50524353;
+    // Part of the header: bump whenever a record layout changes
+    static final int VERSION = 1;
+    private static final int HEADER_SIZE = 64;
+    // A mapping is int-indexed, so the file is mapped in 1 GiB segments and no record crosses a boundary
+    private static final int SEGMENT_SHIFT = 30;
+    private static final long SEGMENT_SIZE = 1L << SEGMENT_SHIFT;
+    private static final long NO_TIME = Long.MIN_VALUE;
+
+    private final ByteBuffer[] segments;
+    private final long changeId;
+    private final Instant savedAt;
+    private final int promptCount;
+    private final long orderOffset;
+    private final long indexOffset;
+    private final List<byte[]> categories;
+
+    private CatalogueSnapshotFile(ByteBuffer[] segments, long changeId, Instant savedAt, int promptCount,
+                                  long orderOffset, long indexOffset, List<byte[]> categories) {
+        this.segments = segments;
+        this.changeId = changeId;
+        this.savedAt = savedAt;
+        this.promptCount = promptCount;
+        this.orderOffset = orderOffset;
+        this.indexOffset = indexOffset;
+        this.categories = categories;
+    }
+
+    static CatalogueSnapshotFile open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE) {
+                throw new IOException("truncated header");
+            }
+            ByteBuffer[] segments = new ByteBuffer[(int) ((size + SEGMENT_SIZE - 1) >>> SEGMENT_SHIFT)];
+            for (int i = 0; i < segments.length; i++) {
+                long start = (long) i << SEGMENT_SHIFT;
+                // The mapping outlives the channel and is released with the buffer
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(SEGMENT_SIZE, size - start));
+            }
+
+            ByteBuffer header = segments[0];
+            if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+                return null;
+            }
+            long changeId = header.getLong(8);
+            Instant savedAt = Instant.ofEpochMilli(header.getLong(16));
+            int promptCount = header.getInt(24);
+            int categoryCount = header.getInt(28);
+            long categoriesOffset = header.getLong(32);
+            long orderOffset = header.getLong(40);
+            long indexOffset = header.getLong(48);
+            if (indexOffset + 24L * promptCount != size) {
+                throw new IOException("size does not match header");
+            }
+
+            CatalogueSnapshotFile file = new CatalogueSnapshotFile(segments, changeId, savedAt, promptCount,
+                    orderOffset, indexOffset, new ArrayList<>(categoryCount));
+            long offset = categoriesOffset;
+            for (int i = 0; i < categoryCount; i++) {
+                offset = file.skipPadding(offset);
+                byte[] record = file.recordAt(offset);
+                file.categories.add(record);
+                offset += 4 + record.length;
+            }
+            return file;
+        }
+    }
+
+    long changeId() {
+        return changeId;
+    }
+
+    Instant savedAt() {
+        return savedAt;
+    }
+
+    int size() {
+        return promptCount;
+    }
+
+    List<byte[]> categories() {
+        return categories;
+    }
+
+    /**
+     * Prompt record at {@code position} in listing order.
+     */
+    byte[] get(int position) {
+        return recordAt(getLong(orderOffset + 8L * position));
+    }
+
+    // Id and creation time of the prompt at a position, read from its record without copying it
+
+    UUID idAt(int position) {
+        long offset = getLong(orderOffset + 8L * position);
+        return new UUID(getLong(offset + 4), getLong(offset + 12));
+    }
+
+    long createdAtSecondsAt(int position) {
+        return getLong(getLong(orderOffset + 8L * position) + 20);
+    }
+
+    int createdAtNanosAt(int position) {
+        return getInt(getLong(orderOffset + 8L * position) + 28);
+    }
+
+    /**
+     * Prompt record with {@code id}, or null when the snapshot does not hold it.
+     */
+    byte[] find(UUID id) {
+        long offset = offsetOf(id);
+        return offset >= 0 ? recordAt(offset) : null;
+    }
+
+    boolean contains(UUID id) {
+        return offsetOf(id) >= 0;
+    }
+
+    private long offsetOf(UUID id) {
+        int low = 0;
+        int high = promptCount - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long entry = indexOffset + 24L * mid;
+            int cmp = compare(getLong(entry), getLong(entry + 8), id);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return getLong(entry + 16);
+            }
+        }
+        return -1;
+    }
+
+    private byte[] recordAt(long offset) {
+        int length = getInt(offset);
+        byte[] record = new byte[length];
+        segments[(int) (offset >>> SEGMENT_SHIFT)].get((int) ((offset & (SEGMENT_SIZE - 1)) + 4), record);
+        return record;
+    }
+
+    private int getInt(long offset) {
+        return segments[(int) (offset >>> SEGMENT_SHIFT)].getInt((int) (offset & (SEGMENT_SIZE - 1)));
+    }
+
+    private long getLong(long offset) {
+        return segments[(int) (offset >>> SEGMENT_SHIFT)].getLong((int) (offset & (SEGMENT_SIZE - 1)));
+    }
+
+    // Records are never empty, so a zero length is the padding the writer put before a segment boundary
+    private long skipPadding(long offset) {
+        long nextSegment = ((offset >>> SEGMENT_SHIFT) + 1) << SEGMENT_SHIFT;
+        return nextSegment - offset < 4 || getInt(offset) == 0 ? nextSegment : offset;
+    }
+
+    private static boolean crossesSegment(long offset, long length) {
+        return offset >>> SEGMENT_SHIFT != (offset + length - 1) >>> SEGMENT_SHIFT;
+    }
+
+    private static int compare(long msb, long lsb, UUID id) {
+        int cmp = Long.compare(msb, id.getMostSignificantBits());
+        return cmp != 0 ? cmp : Long.compare(lsb, id.getLeastSignificantBits());
+    }
+
+    /**
+     * Writes a snapshot; prompts must be added in listing order.
+     */
+    static final class Writer implements Closeable {
+
+        private final FileChannel channel;
+        private final OutputStream out;
+        private long position;
+        private final List<Long> order = new ArrayList<>();
+        private final List<IndexEntry> index = new ArrayList<>();
+        private long categoriesOffset = -1;
+        private int categoryCount;
+
+        private record IndexEntry(long msb, long lsb, long offset) {
+        }
+
+        Writer(Path path) throws IOException {
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            out = new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16);
+            // Filled in by finish() once the section offsets are known
+            pad(HEADER_SIZE);
+        }
+
+        void addPrompt(byte[] record) throws IOException {
+            if (categoriesOffset >= 0) {
+                throw new IllegalStateException("Prompts must be written before categories");
+            }
+            long offset = writeRecord(record);
+            order.add(offset);
+            ByteBuffer header = ByteBuffer.wrap(record);
+            index.add(new IndexEntry(header.getLong(0), header.getLong(8), offset));
+        }
+
+        void addCategory(byte[] record) throws IOException {
+            if (categoriesOffset < 0) {
+                categoriesOffset = position;
+            }
+            writeRecord(record);
+            categoryCount++;
+        }
+
+        void finish(long changeId, Instant savedAt) throws IOException {
+            if (categoriesOffset < 0) {
+                categoriesOffset = position;
+            }
+            pad((int) ((8 - position % 8) % 8));
+            long orderOffset = position;
+            ByteBuffer buffer = ByteBuffer.allocate(24);
+            for (long offset : order) {
+                out.write(buffer.clear().putLong(offset).array(), 0, 8);
+            }
+            position += 8L * order.size();
+            long indexOffset = position;
+            index.sort(Comparator.comparingLong(IndexEntry::msb).thenComparingLong(IndexEntry::lsb));
+            for (IndexEntry entry : index) {
+                out.write(buffer.clear().putLong(entry.msb()).putLong(entry.lsb()).putLong(entry.offset()).array());
+            }
+            position += 24L * index.size();
+            out.flush();
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE)
+                    .putInt(MAGIC)
+                    .putInt(VERSION)
+                    .putLong(changeId)
+                    .putLong(savedAt.toEpochMilli())
+                    .putInt(order.size())
+                    .putInt(categoryCount)
+                    .putLong(categoriesOffset)
+                    .putLong(orderOffset)
+                    .putLong(indexOffset);
+            header.clear();
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+            channel.force(true);
+        }
+
+        private long writeRecord(byte[] record) throws IOException {
+            if (4L + record.length > SEGMENT_SIZE) {
+                throw new IOException("Record of " + record.length + " bytes does not fit a segment");
+            }
+            if (crossesSegment(position, 4L + record.length)) {
+                pad((int) ((((position >>> SEGMENT_SHIFT) + 1) << SEGMENT_SHIFT) - position));
+            }
+            long offset = position;
+            out.write(ByteBuffer.allocate(4).putInt(record.length).array());
+            out.write(record);
+            position += 4L + record.length;
+            return offset;
+        }
+
+        private void pad(int length) throws IOException {
+            out.write(new byte[length]);
+            position += length;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                out.close();
+            } finally {
+                channel.close();
+            }
+        }
+    }
+
+    // Record payloads. A prompt starts with its id and creation time so both can be read without decoding it.
+
+    static UUID promptId(byte[] record) {
+        ByteBuffer buffer = ByteBuffer.wrap(record);
+        return new UUID(buffer.getLong(0), buffer.getLong(8));
+    }
+
+    static long createdAtSeconds(byte[] record) {
+        return ByteBuffer.wrap(record).getLong(16);
+    }
+
+    static int createdAtNanos(byte[] record) {
+        return ByteBuffer.wrap(record).getInt(24);
+    }
+
+    static byte[] encode(Prompt prompt) {
+        return encode(out -> {
+            writeId(out, prompt.getId());
+            writeTime(out, prompt.getCreatedAt());
+            writeTime(out, prompt.getUpdatedAt());
+            writeString(out, prompt.getTitle());
+            writeString(out, prompt.getDescription());
+            writeString(out, prompt.getContent());
+            Set<String> tags = prompt.getTags() != null ? prompt.getTags() : Set.of();
+            out.writeInt(tags.size());
+            for (String tag : tags) {
+                writeString(out, tag);
+            }
+            Set<Category> categories = prompt.getCategories() != null ? prompt.getCategories() : Set.of();
+            out.writeInt(categories.size());
+            for (Category category : categories) {
+                writeId(out, category.getId());
+            }
+            Set<PromptVariable> variables = prompt.getVariables() != null ? prompt.getVariables() : Set.of();
+            out.writeInt(variables.size());
+            for (PromptVariable variable : variables) {
+                writeString(out, variable.getName());
+                writeString(out, variable.getDescription());
+                writeString(out, variable.getDefaultValue());
+                out.writeByte(variable.getRequired() == null ? -1 : variable.getRequired() ? 1 : 0);
+                writeString(out, variable.getType() != null ? variable.getType().name() : null);
+            }
+        });
+    }
+
+    static PromptDto decodePrompt(byte[] record, Map<UUID, CategoryDto> categories) {
+        try {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(record));
+            PromptDto.PromptDtoBuilder prompt = PromptDto.builder()
+                    .id(readId(in).toString())
+                    .createdAt(readTime(in))
+                    .updatedAt(readTime(in))
+                    .title(readString(in))
+                    .description(readString(in))
+                    .content(readString(in));
+            int tagCount = in.readInt();
+            Set<String> tags = new HashSet<>();
+            for (int i = 0; i < tagCount; i++) {
+                tags.add(readString(in));
+            }
+            int categoryCount = in.readInt();
+            Set<CategoryDto> promptCategories = new LinkedHashSet<>();
+            for (int i = 0; i < categoryCount; i++) {
+                // A category deleted since the prompt was written is dropped, as the join row would be
+                CategoryDto category = categories.get(readId(in));
+                if (category != null) {
+                    promptCategories.add(category);
+                }
+            }
+            int variableCount = in.readInt();
+            Set<PromptVariableDto> variables = new HashSet<>();
+            for (int i = 0; i < variableCount; i++) {
+                String name = readString(in);
+                String description = readString(in);
+                String defaultValue = readString(in);
+                byte required = in.readByte();
+                String type = readString(in);
+                variables.add(PromptVariableDto.builder()
+                        .name(name)
+                        .description(description)
+                        .defaultValue(defaultValue)
+                        .required(required < 0 ? null : required == 1)
+                        .type(type != null ? PromptVariable.VariableType.valueOf(type) : null)
+                        .build());
+            }
+            return prompt.tags(tags).categories(promptCategories).variables(variables).build();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static byte[] encode(Category category) {
+        return encode(out -> {
+            writeId(out, category.getId());
+            writeString(out, category.getName());
+            writeString(out, category.getDescription());
+            writeString(out, category.getIcon());
+            writeString(out, category.getColor());
+            writeNullableInt(out, category.getDisplayOrder());
+            writeNullableInt(out, category.getPromptCount());
+        });
+    }
+
+    static CategoryDto decodeCategory(byte[] record) {
+        try {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(record));
+            return CategoryDto.builder()
+                    .id(readId(in).toString())
+                    .name(readString(in))
+                    .description(readString(in))
+                    .icon(readString(in))
+                    .color(readString(in))
+                    .displayOrder(readNullableInt(in))
+                    .promptCount(readNullableInt(in))
+                    .build();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private interface RecordWriter {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    private static byte[] encode(RecordWriter writer) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try {
+            writer.write(new DataOutputStream(bytes));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void writeId(DataOutputStream out, UUID id) throws IOException {
+        out.writeLong(id.getMostSignificantBits());
+        out.writeLong(id.getLeastSignificantBits());
+    }
+
+    private static UUID readId(DataInputStream in) throws IOException {
+        return new UUID(in.readLong(), in.readLong());
+    }
+
+    private static void writeTime(DataOutputStream out, LocalDateTime time) throws IOException {
+        out.writeLong(time != null ? time.toEpochSecond(ZoneOffset.UTC) : NO_TIME);
+        out.writeInt(time != null ? time.getNano() : 0);
+    }
+
+    private static LocalDateTime readTime(DataInputStream in) throws IOException {
+        long seconds = in.readLong();
+        int nanos = in.readInt();
+        return seconds != NO_TIME ? LocalDateTime.ofEpochSecond(seconds, nanos, ZoneOffset.UTC) : null;
+    }
+
+    // Length-prefixed rather than writeUTF, which stops at 64 KB
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeNullableInt(DataOutputStream out, Integer value) throws IOException {
+        out.writeBoolean(value != null);
+        out.writeInt(Objects.requireNonNullElse(value, 0));
+    }
+
+    private static Integer readNullableInt(DataInputStream in) throws IOException {
+        boolean present = in.readBoolean();
+        int value = in.readInt();
+        return present ? value : null;
+    }
+}
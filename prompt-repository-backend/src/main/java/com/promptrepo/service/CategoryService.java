@@ -1,9 +1,17 @@
 package com.promptrepo.service;
 
+import com.promptrepo.config.CacheConfig;
+import com.promptrepo.config.ReplicaRoutingDataSource;
 import com.promptrepo.dto.CategoryDto;
+import com.promptrepo.event.CategoryChangedEvent;
+import com.promptrepo.event.ChangeType;
+import com.promptrepo.event.DatabaseReadyEvent;
 import com.promptrepo.model.Category;
 import com.promptrepo.repository.CategoryRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -16,6 +24,7 @@ import java.util.stream.Collectors;
 public class CategoryService {
     
     private final CategoryRepository categoryRepository;
+    private final ApplicationEventPublisher eventPublisher;
     
     public Category createCategory(String name, String description, String icon, String color, Integer displayOrder) {
         if (categoryRepository.existsByName(name)) {
@@ -30,11 +39,13 @@ public class CategoryService {
                 .displayOrder(displayOrder != null ? displayOrder : 0)
                 .build();
         
-        return categoryRepository.save(category);
+        category = categoryRepository.save(category);
+        eventPublisher.publishEvent(CategoryChangedEvent.of(ChangeType.CREATED, category));
+        return category;
     }
     
     public Category updateCategory(String id, String name, String description, String icon, String color, Integer displayOrder) {
-        Category category = categoryRepository.findById(id)
+        Category category = categoryRepository.findById(Ids.parse(id))
                 .orElseThrow(() -> new IllegalArgumentException("Category not found"));
         
         if (name != null && !name.equals(category.getName())) {
@@ -49,37 +60,49 @@ public class CategoryService {
         if (color != null) category.setColor(color);
         if (displayOrder != null) category.setDisplayOrder(displayOrder);
         
-        return categoryRepository.save(category);
+        category = categoryRepository.save(category);
+        eventPublisher.publishEvent(CategoryChangedEvent.of(ChangeType.UPDATED, category));
+        return category;
     }
     
     public void deleteCategory(String id) {
-        Category category = categoryRepository.findById(id)
+        Category category = categoryRepository.findById(Ids.parse(id))
                 .orElseThrow(() -> new IllegalArgumentException("Category not found"));
         categoryRepository.delete(category);
+        eventPublisher.publishEvent(CategoryChangedEvent.of(ChangeType.DELETED, category));
     }
     
+    @Transactional(readOnly = true)
+    @Cacheable(CacheConfig.CATEGORY_LIST)
     public List<CategoryDto> getAllCategories() {
-        return categoryRepository.findAllByOrderByDisplayOrderAsc()
+        return ReplicaRoutingDataSource.onPrimary(() -> categoryRepository.findAllByOrderByDisplayOrderAsc()
                 .stream()
                 .map(this::toDto)
-                .collect(Collectors.toList());
+                .collect(Collectors.toList()));
     }
     
+    @Transactional(readOnly = true)
+    @Cacheable(CacheConfig.CATEGORIES)
     public CategoryDto getCategoryById(String id) {
-        Category category = categoryRepository.findById(id)
-                .orElseThrow(() -> new IllegalArgumentException("Category not found"));
+        Category category = ReplicaRoutingDataSource.onPrimary(() -> categoryRepository.findById(Ids.parse(id))
+                .orElseThrow(() -> new IllegalArgumentException("Category not found")));
         return toDto(category);
     }
     
+    @EventListener(DatabaseReadyEvent.class)
+    public void rebuildPromptCounts() {
+        categoryRepository.rebuildPromptCounts();
+    }
+    
     private CategoryDto toDto(Category category) {
         return CategoryDto.builder()
-                .id(category.getId())
+                .id(category.getId().toString())
                 .name(category.getName())
                 .description(category.getDescription())
                 .icon(category.getIcon())
                 .color(category.getColor())
                 .displayOrder(category.getDisplayOrder())
-                .promptCount(category.getPrompts() != null ? category.getPrompts().size() : 0)
+                .promptCount(category.getPromptCount())
                 .build();
     }
 }
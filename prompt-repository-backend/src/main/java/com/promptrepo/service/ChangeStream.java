@@ -0,0 +1,307 @@
+package com.promptrepo.service;
+
+import com.promptrepo.dto.ChangeStreamEventDto;
+import com.promptrepo.event.CategoryChangedEvent;
+import com.promptrepo.event.PromptChangedEvent;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Pushes committed prompt and category changes to Server-Sent Events subscribers.
+ * <p>
+ * Recent events are kept in a ring buffer so a reconnecting client can resume from its
+ * {@code Last-Event-ID}. Each subscriber has a bounded queue drained on the stream's own small pool of
+ * sender threads, so slow clients cannot hold up other work; a subscriber that falls a full queue behind,
+ * or whose send blocks past the send timeout, is disconnected and resumes from the ring buffer when it
+ * reconnects. An idle subscriber holds an async request and an empty queue, no thread.
+ */
+@Slf4j
+@Component
+public class ChangeStream {
+
+    static final String RESET_EVENT = "reset";
+
+    @Value("${promptrepo.events.replay-size:4096}")
+    private int replaySize;
+
+    @Value("${promptrepo.events.subscriber-buffer:256}")
+    private int subscriberBuffer;
+
+    @Value("${promptrepo.events.timeout:30m}")
+    private Duration timeout;
+
+    @Value("${promptrepo.events.heartbeat:30s}")
+    private Duration heartbeat;
+
+    @Value("${promptrepo.events.senders:4}")
+    private int senders;
+
+    // Each subscriber has at most one drain waiting, so this bounds the subscribers waiting for a sender
+    @Value("${promptrepo.events.send-queue:1024}")
+    private int sendQueue;
+
+    @Value("${promptrepo.events.send-timeout:10s}")
+    private Duration sendTimeout;
+
+    // Event ids are "<epoch>-<sequence>"; a new epoch per start tells clients their position is gone
+    private final String epoch = Long.toHexString(System.currentTimeMillis());
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final Object lock = new Object();
+    private ChangeStreamEventDto[] replay;
+    private long sequence;
+    private ScheduledExecutorService heartbeats;
+    private ThreadPoolExecutor sender;
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onPromptChanged(PromptChangedEvent event) {
+        publish("prompt", event.type().name(), event.id());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        publish("category", event.type().name(), event.id());
+    }
+
+    /**
+     * Opens a stream, first replaying everything after {@code lastEventId} when it is still buffered.
+     * When it is not, the stream opens with a {@value #RESET_EVENT} event and the client should resync.
+     */
+    public SseEmitter subscribe(String lastEventId) {
+        SseEmitter emitter = new SseEmitter(timeout.toMillis());
+        Subscriber subscriber = new Subscriber(emitter);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(subscriber::close);
+        emitter.onError(error -> subscriber.close());
+
+        synchronized (lock) {
+            // Registered under the same lock as publish, so nothing falls between the replay and live events
+            List<ChangeStreamEventDto> missed = missedSince(lastEventId);
+            if (missed == null || missed.size() > subscriberBuffer) {
+                String resetId = currentId();
+                subscriber.offer(() -> SseEmitter.event().name(RESET_EVENT).id(resetId).data("{}"));
+            } else {
+                missed.forEach(event -> subscriber.offer(() -> toSse(event)));
+            }
+            subscribers.add(subscriber);
+        }
+        return emitter;
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    @PostConstruct
+    void start() {
+        replay = new ChangeStreamEventDto[replaySize];
+        heartbeats = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "sse-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // A comment line keeps proxies from closing idle streams and surfaces dead connections
+        heartbeats.scheduleAtFixedRate(
+                () -> subscribers.forEach(subscriber -> subscriber.offer(() -> SseEmitter.event().comment("ping"))),
+                heartbeat.toMillis(), heartbeat.toMillis(), TimeUnit.MILLISECONDS);
+        long check = Math.max(sendTimeout.toMillis() / 2, 100);
+        heartbeats.scheduleWithFixedDelay(() -> {
+            long now = System.nanoTime();
+            subscribers.forEach(subscriber -> subscriber.closeIfStalled(now));
+        }, check, check, TimeUnit.MILLISECONDS);
+
+        AtomicInteger threads = new AtomicInteger();
+        sender = new ThreadPoolExecutor(senders, senders, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(sendQueue),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "sse-sender-" + threads.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        sender.allowCoreThreadTimeOut(true);
+    }
+
+    private void publish(String entity, String type, String id) {
+        synchronized (lock) {
+            long seq = ++sequence;
+            ChangeStreamEventDto event = ChangeStreamEventDto.builder()
+                    .eventId(epoch + "-" + seq)
+                    .entity(entity)
+                    .type(type)
+                    .id(id)
+                    .build();
+            replay[(int) (seq % replaySize)] = event;
+            subscribers.forEach(subscriber -> subscriber.offer(() -> toSse(event)));
+        }
+    }
+
+    // null when the position cannot be resumed from: unknown format, an earlier run, or overwritten
+    private List<ChangeStreamEventDto> missedSince(String lastEventId) {
+        if (lastEventId == null || lastEventId.isBlank()) {
+            return List.of();
+        }
+        int separator = lastEventId.lastIndexOf('-');
+        if (separator < 0 || !lastEventId.substring(0, separator).equals(epoch)) {
+            return null;
+        }
+        long last;
+        try {
+            last = Long.parseLong(lastEventId.substring(separator + 1));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        if (last > sequence || sequence - last > replaySize) {
+            return null;
+        }
+        List<ChangeStreamEventDto> missed = new ArrayList<>((int) (sequence - last));
+        for (long seq = last + 1; seq <= sequence; seq++) {
+            missed.add(replay[(int) (seq % replaySize)]);
+        }
+        return missed;
+    }
+
+    private String currentId() {
+        return epoch + "-" + sequence;
+    }
+
+    private static SseEmitter.SseEventBuilder toSse(ChangeStreamEventDto event) {
+        return SseEmitter.event()
+                .id(event.getEventId())
+                .name(event.getEntity())
+                .data(event, MediaType.APPLICATION_JSON);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        heartbeats.shutdownNow();
+        subscribers.forEach(Subscriber::close);
+        sender.shutdownNow();
+    }
+
+    private final class Subscriber {
+
+        private final SseEmitter emitter;
+        // Builders are not reusable once sent, so each subscriber builds its own from the shared event
+        private final BlockingQueue<Supplier<SseEmitter.SseEventBuilder>> queue;
+        // Held by the running drain, and for good by whoever completes the emitter after close
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private volatile boolean closed;
+        private volatile Thread sending;
+        private volatile long sendStarted;
+
+        Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+            // Linked rather than array-backed, so an idle subscriber does not preallocate its whole buffer
+            this.queue = new LinkedBlockingQueue<>(subscriberBuffer);
+        }
+
+        void offer(Supplier<SseEmitter.SseEventBuilder> event) {
+            if (closed) {
+                return;
+            }
+            if (!queue.offer(event)) {
+                log.debug("Closing event stream subscriber that fell {} events behind", subscriberBuffer);
+                close();
+                return;
+            }
+            if (draining.compareAndSet(false, true)) {
+                schedule();
+            }
+        }
+
+        private void schedule() {
+            try {
+                sender.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                log.debug("Closing event stream subscriber, all {} senders are busy", senders);
+                draining.set(false);
+                close();
+            }
+        }
+
+        // At most one drain per subscriber runs at a time, which keeps its events in order
+        private void drain() {
+            try {
+                Supplier<SseEmitter.SseEventBuilder> event;
+                while (!closed && (event = queue.poll()) != null) {
+                    send(event.get());
+                }
+            } catch (IOException | IllegalStateException e) {
+                close();
+            } finally {
+                draining.set(false);
+            }
+            if (closed) {
+                completeIfIdle();
+            } else if (!queue.isEmpty() && draining.compareAndSet(false, true)) {
+                schedule();
+            }
+        }
+
+        private void send(SseEmitter.SseEventBuilder event) throws IOException {
+            synchronized (this) {
+                sendStarted = System.nanoTime();
+                sending = Thread.currentThread();
+            }
+            try {
+                emitter.send(event);
+            } finally {
+                synchronized (this) {
+                    sending = null;
+                    // An interrupt meant for this send must not reach the pool thread's next task
+                    Thread.interrupted();
+                }
+            }
+        }
+
+        /**
+         * The interrupt wakes a send parked in the container. One it does not wake still fails at the
+         * connector's write timeout; either way the subscriber is gone and its sender returns to the pool.
+         */
+        synchronized void closeIfStalled(long now) {
+            Thread thread = sending;
+            if (thread != null && now - sendStarted > sendTimeout.toNanos()) {
+                log.debug("Closing event stream subscriber whose send blocked for over {}", sendTimeout);
+                close();
+                thread.interrupt();
+            }
+        }
+
+        // Safe from any thread: a drain in progress may hold the emitter's lock in send, so it completes it
+        void close() {
+            closed = true;
+            subscribers.remove(this);
+            queue.clear();
+            completeIfIdle();
+        }
+
+        private void completeIfIdle() {
+            if (draining.compareAndSet(false, true)) {
+                emitter.complete();
+            }
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.promptrepo.service;
+
+import com.promptrepo.model.PromptVariable;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Prompt content parsed once into alternating literal and {@code {{variable}}} segments.
+ * Rendering is a single pass that appends pre-split literals and resolved values.
+ */
+final class CompiledTemplate {
+    
+    record VariableSpec(String name, PromptVariable.VariableType type, String defaultValue, boolean required) {
+    }
+    
+    // literals.length == names.length + 1; the output is literals[0] names[0] literals[1] ...
+    private final String[] literals;
+    private final String[] names;
+    private final Map<String, VariableSpec> variables;
+    private final int literalLength;
+    
+    private CompiledTemplate(String[] literals, String[] names, Map<String, VariableSpec> variables) {
+        this.literals = literals;
+        this.names = names;
+        this.variables = variables;
+        int length = 0;
+        for (String literal : literals) {
+            length += literal.length();
+        }
+        this.literalLength = length;
+    }
+    
+    static CompiledTemplate compile(String content, Collection<PromptVariable> variables) {
+        List<String> literals = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        int cursor = 0;
+        int open;
+        while ((open = content.indexOf("{{", cursor)) >= 0) {
+            int close = content.indexOf("}}", open + 2);
+            if (close < 0) {
+                break;
+            }
+            String name = content.substring(open + 2, close).trim();
+            if (!isName(name)) {
+                // Not a placeholder; keep the braces as literal text and continue after them
+                literals.add(content.substring(cursor, open + 2));
+                names.add(null);
+                cursor = open + 2;
+                continue;
+            }
+            literals.add(content.substring(cursor, open));
+            names.add(name);
+            cursor = close + 2;
+        }
+        literals.add(content.substring(cursor));
+        
+        Map<String, VariableSpec> specs = new HashMap<>();
+        for (PromptVariable variable : variables) {
+            specs.put(variable.getName(), new VariableSpec(
+                    variable.getName(),
+                    variable.getType() != null ? variable.getType() : PromptVariable.VariableType.TEXT,
+                    variable.getDefaultValue(),
+                    !Boolean.FALSE.equals(variable.getRequired())));
+        }
+        return new CompiledTemplate(literals.toArray(String[]::new), names.toArray(String[]::new), specs);
+    }
+    
+    String render(Map<String, Object> values) {
+        Map<String, String> resolved = resolve(values != null ? values : Map.of());
+        
+        int capacity = literalLength;
+        for (String value : resolved.values()) {
+            capacity += value.length();
+        }
+        StringBuilder out = new StringBuilder(capacity);
+        for (int i = 0; i < names.length; i++) {
+            out.append(literals[i]);
+            String name = names[i];
+            if (name == null) {
+                continue;
+            }
+            String value = resolved.get(name);
+            if (value != null) {
+                out.append(value);
+            } else {
+                // Undeclared placeholder without a supplied value is left untouched
+                out.append("{{").append(name).append("}}");
+            }
+        }
+        out.append(literals[names.length]);
+        return out.toString();
+    }
+    
+    private Map<String, String> resolve(Map<String, Object> values) {
+        Map<String, String> resolved = new HashMap<>();
+        List<String> errors = new ArrayList<>();
+        
+        for (VariableSpec spec : variables.values()) {
+            Object raw = values.get(spec.name());
+            String value = raw != null ? String.valueOf(raw) : spec.defaultValue();
+            if (value == null) {
+                if (spec.required()) {
+                    errors.add("Missing required variable '" + spec.name() + "'");
+                } else {
+                    resolved.put(spec.name(), "");
+                }
+                continue;
+            }
+            String error = validate(spec, value);
+            if (error != null) {
+                errors.add(error);
+            } else {
+                resolved.put(spec.name(), value);
+            }
+        }
+        
+        values.forEach((name, raw) -> {
+            if (!variables.containsKey(name) && raw != null) {
+                resolved.put(name, String.valueOf(raw));
+            }
+        });
+        
+        if (!errors.isEmpty()) {
+            throw new PromptRenderException(errors);
+        }
+        return resolved;
+    }
+    
+    private static String validate(VariableSpec spec, String value) {
+        switch (spec.type()) {
+            case NUMBER:
+                try {
+                    new BigDecimal(value.trim());
+                    return null;
+                } catch (NumberFormatException e) {
+                    return "Variable '" + spec.name() + "' must be a number";
+                }
+            case BOOLEAN:
+                return value.equalsIgnoreCase("true") || value.equalsIgnoreCase("false")
+                        ? null
+                        : "Variable '" + spec.name() + "' must be true or false";
+            case TEXT:
+            case SELECT:
+                return value.indexOf('\n') >= 0
+                        ? "Variable '" + spec.name() + "' must be a single line"
+                        : null;
+            default:
+                return null;
+        }
+    }
+    
+    private static boolean isName(String name) {
+        if (name.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (!Character.isLetterOrDigit(c) && c != '_' && c != '-' && c != '.') {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,130 @@
+package com.promptrepo.service;
+
+import com.promptrepo.event.DatabaseReadyEvent;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.net.SocketException;
+import java.net.UnknownHostException;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Tracks whether the database can be reached. It starts out unavailable and is probed on startup, then
+ * again every probe interval for as long as a request has found it unreachable. While it is down,
+ * catalogue reads are served from {@link CatalogueSnapshot} and writes are refused.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class DatabaseAvailability {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TaskExecutor applicationTaskExecutor;
+
+    @Value("${promptrepo.snapshot.probe-interval:5s}")
+    private Duration probeInterval;
+
+    private volatile boolean available;
+    private final AtomicBoolean readyPublished = new AtomicBoolean();
+    private ScheduledExecutorService prober;
+
+    public boolean isAvailable() {
+        return available;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!probe()) {
+            log.warn("Database unavailable at startup; serving catalogue reads from the snapshot until it answers");
+        }
+        prober = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "database-probe");
+            thread.setDaemon(true);
+            return thread;
+        });
+        prober.scheduleWithFixedDelay(() -> {
+            if (!available) {
+                probe();
+            }
+        }, probeInterval.toMillis(), probeInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Marks the database unavailable when {@code e} means it could not be reached, so later reads go
+     * straight to the snapshot instead of each waiting for a connection. Returns whether it did.
+     * <p>
+     * A busy pool times out with the same exception types as a database that is down, so only a
+     * connection-class SQLState (08xxx) or a socket error among the causes counts. Hikari passes on the
+     * SQLState of its last failed connection attempt, and leaves it unset when the pool is merely exhausted.
+     */
+    public boolean reportFailure(RuntimeException e) {
+        if (!isConnectivityFailure(e)) {
+            return false;
+        }
+        if (available) {
+            available = false;
+            log.warn("Database unreachable, switching to read-only mode: {}", e.getMessage());
+        }
+        return true;
+    }
+
+    static boolean isConnectivityFailure(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException sql && sql.getSQLState() != null && sql.getSQLState().startsWith("08")) {
+                return true;
+            }
+            // Refused, reset and unroutable connections are all SocketExceptions
+            if (cause instanceof SocketException || cause instanceof UnknownHostException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean probe() {
+        try {
+            jdbcTemplate.queryForObject("SELECT 1", Integer.class);
+        } catch (DataAccessException e) {
+            log.debug("Database probe failed: {}", e.getMessage());
+            return false;
+        }
+        if (!available) {
+            available = true;
+            log.info("Database reachable");
+        }
+        if (readyPublished.compareAndSet(false, true)) {
+            // Warm-up rebuilds whole indexes, which must hold up neither startup nor the next probe
+            applicationTaskExecutor.execute(() -> {
+                try {
+                    eventPublisher.publishEvent(new DatabaseReadyEvent());
+                } catch (RuntimeException e) {
+                    // A failed warm-up leaves that index cold
+                    log.error("Warm-up after the database became reachable failed", e);
+                }
+            });
+        }
+        return true;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (prober != null) {
+            prober.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.promptrepo.service;
+
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Converts ids from their external string form. Entities use {@link UUID} keys; DTOs, events and
+ * URLs keep the canonical 36-character string. Only that form is accepted: caches are keyed by the
+ * string and evicted by the canonical one, so any other spelling of an id would outlive its evictions.
+ */
+final class Ids {
+    
+    private Ids() {
+    }
+    
+    static UUID parse(String id) {
+        UUID parsed = parseCanonical(id);
+        if (parsed == null) {
+            throw new IllegalArgumentException("Invalid id: " + id);
+        }
+        return parsed;
+    }
+    
+    static Set<UUID> parseAll(Collection<String> ids) {
+        Set<UUID> parsed = new LinkedHashSet<>();
+        for (String id : ids) {
+            parsed.add(parse(id));
+        }
+        return parsed;
+    }
+    
+    // For lookups where an unknown id is reported as missing rather than rejected
+    static Set<UUID> parseValid(Collection<String> ids) {
+        Set<UUID> parsed = new LinkedHashSet<>();
+        for (String id : ids) {
+            UUID valid = parseCanonical(id);
+            if (valid != null) {
+                parsed.add(valid);
+            }
+        }
+        return parsed;
+    }
+    
+    // UUID.fromString also takes upper case and unpadded groups, which round-trip to a different string
+    private static UUID parseCanonical(String id) {
+        try {
+            UUID parsed = UUID.fromString(id);
+            return parsed.toString().equals(id) ? parsed : null;
+        } catch (IllegalArgumentException | NullPointerException e) {
+            // not an id we could have issued
+            return null;
+        }
+    }
+}
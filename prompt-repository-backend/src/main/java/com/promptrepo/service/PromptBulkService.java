@@ -0,0 +1,280 @@
+package com.promptrepo.service;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.promptrepo.dto.CreatePromptRequest;
+import com.promptrepo.dto.CursorPage;
+import com.promptrepo.dto.ImportResultDto;
+import com.promptrepo.dto.PromptDto;
+import com.promptrepo.dto.PromptVariableDto;
+import com.promptrepo.event.CategoryPromptCountChangedEvent;
+import com.promptrepo.event.ChangeType;
+import com.promptrepo.event.PromptChangedEvent;
+import com.promptrepo.model.PromptVariable;
+import com.promptrepo.model.UuidV7Generator;
+import com.promptrepo.repository.CategoryRepository;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Streaming bulk import and export. Import writes prompts with batched JDBC inserts, a batch per
+ * transaction, so heap use is bounded by the batch size rather than the size of the upload.
+ */
+@Service
+@RequiredArgsConstructor
+public class PromptBulkService {
+    
+    private static final int BATCH_SIZE = 500;
+    private static final int MAX_REPORTED_ERRORS = 1000;
+    // Length of the varchar(255) columns: title, tag, variable name and default value
+    private static final int MAX_COLUMN_LENGTH = 255;
+    
+    private final PromptService promptService;
+    private final CategoryRepository categoryRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObjectMapper objectMapper;
+    private final EntityManager entityManager;
+    
+    private record PendingPrompt(long index, UUID id, CreatePromptRequest request) {
+    }
+    
+    /**
+     * Accepts newline-delimited JSON objects or a single JSON array of {@link CreatePromptRequest}.
+     */
+    public ImportResultDto importPrompts(InputStream body) throws IOException {
+        Set<String> categoryIds = categoryRepository.findAll().stream()
+                .map(category -> category.getId().toString())
+                .collect(Collectors.toSet());
+        
+        ImportResultDto result = ImportResultDto.builder().errors(new ArrayList<>()).build();
+        List<PendingPrompt> batch = new ArrayList<>(BATCH_SIZE);
+        long index = 0;
+        
+        try (MappingIterator<CreatePromptRequest> records =
+                     objectMapper.readerFor(CreatePromptRequest.class).readValues(body)) {
+            while (true) {
+                CreatePromptRequest request;
+                try {
+                    if (!records.hasNextValue()) {
+                        break;
+                    }
+                    request = records.nextValue();
+                } catch (JsonParseException e) {
+                    // Malformed JSON leaves no reliable position to resume from
+                    recordError(result, index, "Malformed JSON: " + e.getOriginalMessage());
+                    break;
+                } catch (JsonMappingException e) {
+                    recordError(result, index++, e.getOriginalMessage());
+                    continue;
+                }
+                
+                String error = validate(request, categoryIds);
+                if (error != null) {
+                    recordError(result, index++, error);
+                    continue;
+                }
+                batch.add(new PendingPrompt(index++, UuidV7Generator.next(), request));
+                if (batch.size() == BATCH_SIZE) {
+                    flush(batch, result);
+                }
+            }
+        }
+        flush(batch, result);
+        return result;
+    }
+    
+    /**
+     * Writes the whole catalogue as newline-delimited {@link PromptDto}s, walking it with a keyset cursor.
+     */
+    public void exportPrompts(OutputStream out) throws IOException {
+        try (SequenceWriter writer = objectMapper.writer().withRootValueSeparator("\n").writeValues(out)) {
+            PromptCursor cursor = PromptCursor.parse(null, "id", Sort.Direction.ASC);
+            while (true) {
+                CursorPage<PromptDto> page = promptService.getAllPrompts(cursor, BATCH_SIZE);
+                writer.writeAll(page.getContent());
+                writer.flush();
+                // The request-scoped persistence context would otherwise retain every exported prompt
+                entityManager.clear();
+                if (!page.isHasNext()) {
+                    break;
+                }
+                cursor = PromptCursor.parse(page.getNextCursor(), null, null);
+            }
+        }
+    }
+    
+    private String validate(CreatePromptRequest request, Set<String> categoryIds) {
+        if (request == null) {
+            return "Empty record";
+        }
+        if (request.getTitle() == null || request.getTitle().isBlank()) {
+            return "Title is required";
+        }
+        if (request.getTitle().length() > MAX_COLUMN_LENGTH) {
+            return "Title is longer than " + MAX_COLUMN_LENGTH + " characters";
+        }
+        if (request.getContent() == null) {
+            return "Content is required";
+        }
+        if (request.getTags() != null) {
+            for (String tag : request.getTags()) {
+                if (tag == null || tag.length() > MAX_COLUMN_LENGTH) {
+                    return "Tags must be non-null and at most " + MAX_COLUMN_LENGTH + " characters";
+                }
+            }
+        }
+        if (request.getVariables() != null) {
+            for (PromptVariableDto variable : request.getVariables()) {
+                if (variable == null || variable.getName() == null || variable.getName().isBlank()) {
+                    return "Variable name is required";
+                }
+                if (variable.getName().length() > MAX_COLUMN_LENGTH) {
+                    return "Variable name is longer than " + MAX_COLUMN_LENGTH + " characters";
+                }
+                if (variable.getDefaultValue() != null && variable.getDefaultValue().length() > MAX_COLUMN_LENGTH) {
+                    return "Default value of " + variable.getName() + " is longer than " + MAX_COLUMN_LENGTH + " characters";
+                }
+            }
+        }
+        if (request.getCategoryIds() != null) {
+            for (String categoryId : request.getCategoryIds()) {
+                if (!categoryIds.contains(categoryId)) {
+                    return "Unknown category " + categoryId;
+                }
+            }
+        }
+        return null;
+    }
+    
+    private void flush(List<PendingPrompt> batch, ImportResultDto result) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        try {
+            transaction.executeWithoutResult(status -> insert(batch));
+            result.setImported(result.getImported() + batch.size());
+        } catch (RuntimeException e) {
+            // One bad record rolls back the whole batch, so retry one by one to report only the bad ones
+            for (PendingPrompt pending : batch) {
+                try {
+                    transaction.executeWithoutResult(status -> insert(List.of(pending)));
+                    result.setImported(result.getImported() + 1);
+                } catch (RuntimeException recordFailure) {
+                    recordError(result, pending.index(), "Rejected by the database: " + recordFailure.getMessage());
+                }
+            }
+        }
+        batch.clear();
+    }
+    
+    private void insert(List<PendingPrompt> batch) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO prompts (id, title, content, description, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?)",
+                batch, batch.size(), (ps, pending) -> {
+                    ps.setObject(1, pending.id());
+                    ps.setString(2, pending.request().getTitle());
+                    ps.setString(3, pending.request().getContent());
+                    ps.setString(4, pending.request().getDescription());
+                    ps.setTimestamp(5, now);
+                    ps.setTimestamp(6, now);
+                });
+        
+        List<Object[]> tags = new ArrayList<>();
+        List<UUID[]> categories = new ArrayList<>();
+        List<Object[]> variables = new ArrayList<>();
+        Map<UUID, Integer> categoryDeltas = new HashMap<>();
+        for (PendingPrompt pending : batch) {
+            CreatePromptRequest request = pending.request();
+            if (request.getTags() != null) {
+                request.getTags().forEach(tag -> tags.add(new Object[]{pending.id(), tag}));
+            }
+            if (request.getCategoryIds() != null) {
+                request.getCategoryIds().forEach(categoryId -> {
+                    UUID id = UUID.fromString(categoryId);
+                    categories.add(new UUID[]{pending.id(), id});
+                    categoryDeltas.merge(id, 1, Integer::sum);
+                });
+            }
+            if (request.getVariables() != null) {
+                for (PromptVariableDto v : request.getVariables()) {
+                    variables.add(new Object[]{
+                            UuidV7Generator.next(),
+                            v.getName(),
+                            v.getDescription(),
+                            v.getDefaultValue(),
+                            v.getRequired() != null ? v.getRequired() : true,
+                            (v.getType() != null ? v.getType() : PromptVariable.VariableType.TEXT).name(),
+                            pending.id(),
+                            now,
+                            now});
+                }
+            }
+        }
+        
+        jdbcTemplate.batchUpdate("INSERT INTO prompt_tags (prompt_id, tag) VALUES (?, ?)",
+                tags, tags.size(), (ps, row) -> {
+                    ps.setObject(1, row[0]);
+                    ps.setString(2, (String) row[1]);
+                });
+        jdbcTemplate.batchUpdate("INSERT INTO prompt_categories (prompt_id, category_id) VALUES (?, ?)",
+                categories, categories.size(), (ps, row) -> {
+                    ps.setObject(1, row[0]);
+                    ps.setObject(2, row[1]);
+                });
+        jdbcTemplate.batchUpdate("INSERT INTO prompt_variables " +
+                "(id, name, description, default_value, required, type, prompt_id, created_at, updated_at) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)", variables);
+        jdbcTemplate.batchUpdate("UPDATE categories SET prompt_count = prompt_count + ? WHERE id = ?",
+                new ArrayList<>(categoryDeltas.entrySet()), categoryDeltas.size(), (ps, delta) -> {
+                    ps.setInt(1, delta.getValue());
+                    ps.setObject(2, delta.getKey());
+                });
+        
+        // Same events as PromptService.createPrompt, so the change feed, caches and in-memory indexes follow
+        categoryDeltas.forEach((categoryId, delta) ->
+                eventPublisher.publishEvent(new CategoryPromptCountChangedEvent(categoryId.toString(), delta)));
+        for (PendingPrompt pending : batch) {
+            CreatePromptRequest request = pending.request();
+            eventPublisher.publishEvent(new PromptChangedEvent(
+                    ChangeType.CREATED,
+                    pending.id().toString(),
+                    request.getTitle(),
+                    request.getDescription(),
+                    request.getContent(),
+                    request.getTags() != null ? Set.copyOf(request.getTags()) : Set.of(),
+                    request.getCategoryIds() != null ? Set.copyOf(request.getCategoryIds()) : Set.of()));
+        }
+    }
+    
+    private void recordError(ImportResultDto result, long index, String message) {
+        result.setFailed(result.getFailed() + 1);
+        if (result.getErrors().size() < MAX_REPORTED_ERRORS) {
+            result.getErrors().add(ImportResultDto.ImportErrorDto.builder()
+                    .index(index)
+                    .message(message)
+                    .build());
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.promptrepo.service;
+
+import com.promptrepo.event.PromptChangedEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Appends every prompt write to the change feed inside the writing transaction.
+ * Changes are buffered per transaction and written as one JDBC batch just before commit.
+ */
+@Component
+@RequiredArgsConstructor
+public class PromptChangeLog {
+    
+    private static final long CHANGE_LOG_LOCK = 0x70726f6d70746cL;
+    
+    private final JdbcTemplate jdbcTemplate;
+    
+    @EventListener
+    @SuppressWarnings("unchecked")
+    public void onPromptChanged(PromptChangedEvent event) {
+        List<PromptChangedEvent> pending = (List<PromptChangedEvent>) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            List<PromptChangedEvent> buffer = new ArrayList<>();
+            TransactionSynchronizationManager.bindResource(this, buffer);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    write(buffer);
+                }
+                
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(PromptChangeLog.this);
+                }
+            });
+            pending = buffer;
+        }
+        pending.add(event);
+    }
+    
+    private void write(List<PromptChangedEvent> events) {
+        // Held until commit, so change ids become visible in the order they were allocated
+        // and a reader can never skip a lower id that commits after a higher one.
+        jdbcTemplate.query("SELECT pg_advisory_xact_lock(?)", rs -> null, CHANGE_LOG_LOCK);
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate("INSERT INTO prompt_changes (prompt_id, type, changed_at) VALUES (?, ?, ?)",
+                events, events.size(), (ps, event) -> {
+                    ps.setObject(1, UUID.fromString(event.id()));
+                    ps.setString(2, event.type().name());
+                    ps.setTimestamp(3, now);
+                });
+    }
+}
@@ -0,0 +1,194 @@
+package com.promptrepo.service;
+
+import com.promptrepo.model.PromptContent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Content-addressed storage for revision bodies. Identical text is stored once; an edit is stored as the
+ * changed span against the previous revision, so many small edits to a large prompt cost little space.
+ */
+@Component
+@RequiredArgsConstructor
+public class PromptContentStore {
+
+    // Longest delta chain a read has to replay before a full copy is written again
+    private static final int MAX_CHAIN_DEPTH = 16;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    record EncodedContent(String hash, String baseHash, PromptContent.Encoding encoding,
+                          int depth, int length, byte[] data) {
+    }
+
+    private record StoredContent(String baseHash, PromptContent.Encoding encoding, byte[] data) {
+    }
+
+    static String hash(String content) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(content.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Rebuilds the text for {@code hash}, fetching its whole delta chain in one recursive query.
+     */
+    public String load(String hash) {
+        List<StoredContent> chain = jdbcTemplate.query(
+                "WITH RECURSIVE chain AS (" +
+                "  SELECT hash, base_hash, encoding, data, depth FROM prompt_contents WHERE hash = ?" +
+                "  UNION ALL" +
+                "  SELECT c.hash, c.base_hash, c.encoding, c.data, c.depth FROM prompt_contents c" +
+                "  JOIN chain ON c.hash = chain.base_hash AND chain.encoding = 'DELTA'" +
+                ") SELECT base_hash, encoding, data FROM chain ORDER BY depth",
+                (rs, rowNum) -> new StoredContent(
+                        rs.getString("base_hash"),
+                        PromptContent.Encoding.valueOf(rs.getString("encoding")),
+                        rs.getBytes("data")),
+                hash);
+        if (chain.isEmpty()) {
+            throw new IllegalArgumentException("Content not found");
+        }
+
+        String text = null;
+        for (StoredContent content : chain) {
+            text = content.encoding() == PromptContent.Encoding.FULL
+                    ? new String(inflate(content.data()), StandardCharsets.UTF_8)
+                    : applyDelta(text, inflate(content.data()));
+        }
+        return text;
+    }
+
+    public Set<String> findExisting(Collection<String> hashes) {
+        if (hashes.isEmpty()) {
+            return Collections.emptySet();
+        }
+        return new HashSet<>(jdbcTemplate.queryForList(
+                "SELECT hash FROM prompt_contents WHERE hash IN (" + placeholders(hashes.size()) + ")",
+                String.class, hashes.toArray()));
+    }
+
+    /**
+     * Encodes {@code content} as a delta against {@code base} when that is smaller than a full copy.
+     * {@code base} may be null, in which case the content is stored in full.
+     */
+    EncodedContent encode(String hash, String content, String baseHash, String base, int baseDepth) {
+        byte[] full = deflate(content.getBytes(StandardCharsets.UTF_8));
+        if (base != null && baseDepth < MAX_CHAIN_DEPTH) {
+            byte[] delta = deflate(delta(base, content));
+            if (delta.length < full.length) {
+                return new EncodedContent(hash, baseHash, PromptContent.Encoding.DELTA,
+                        baseDepth + 1, content.length(), delta);
+            }
+        }
+        return new EncodedContent(hash, null, PromptContent.Encoding.FULL, 0, content.length(), full);
+    }
+
+    void insert(List<EncodedContent> contents) {
+        if (contents.isEmpty()) {
+            return;
+        }
+        // Another transaction may have stored the same text concurrently; either copy will do
+        jdbcTemplate.batchUpdate("INSERT INTO prompt_contents (hash, base_hash, encoding, depth, length, data) " +
+                        "VALUES (?, ?, ?, ?, ?, ?) ON CONFLICT (hash) DO NOTHING",
+                new ArrayList<>(contents), contents.size(), (ps, content) -> {
+                    ps.setString(1, content.hash());
+                    ps.setString(2, content.baseHash());
+                    ps.setString(3, content.encoding().name());
+                    ps.setInt(4, content.depth());
+                    ps.setInt(5, content.length());
+                    ps.setBytes(6, content.data());
+                });
+    }
+
+    static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+
+    // Common prefix length, common suffix length and the replacement text in between
+    private static byte[] delta(String base, String target) {
+        int maxAffix = Math.min(base.length(), target.length());
+        int prefix = 0;
+        while (prefix < maxAffix && base.charAt(prefix) == target.charAt(prefix)) {
+            prefix++;
+        }
+        int suffix = 0;
+        while (suffix < maxAffix - prefix
+                && base.charAt(base.length() - 1 - suffix) == target.charAt(target.length() - 1 - suffix)) {
+            suffix++;
+        }
+        // Never split a surrogate pair, the middle has to survive a round trip through UTF-8
+        if (prefix > 0 && Character.isHighSurrogate(target.charAt(prefix - 1))) {
+            prefix--;
+        }
+        if (suffix > 0 && Character.isLowSurrogate(target.charAt(target.length() - suffix))) {
+            suffix--;
+        }
+
+        byte[] middle = target.substring(prefix, target.length() - suffix).getBytes(StandardCharsets.UTF_8);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(middle.length + 12);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(prefix);
+            out.writeInt(suffix);
+            out.writeInt(middle.length);
+            out.write(middle);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static String applyDelta(String base, byte[] delta) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(delta))) {
+            int prefix = in.readInt();
+            int suffix = in.readInt();
+            byte[] middle = in.readNBytes(in.readInt());
+            return base.substring(0, prefix)
+                    + new String(middle, StandardCharsets.UTF_8)
+                    + base.substring(base.length() - suffix);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static byte[] deflate(byte[] data) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(Math.max(64, data.length / 2));
+        try (DeflaterOutputStream out = new DeflaterOutputStream(bytes)) {
+            out.write(data);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static byte[] inflate(byte[] data) {
+        try (InflaterInputStream in = new InflaterInputStream(new ByteArrayInputStream(data))) {
+            return in.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.promptrepo.service;
+
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Keyset position for prompt listings, ordered by {@code sortBy} with {@code id} as tie-breaker.
+ * Ids are time-ordered, so {@code sortBy=id} walks prompts in creation order on the primary key alone.
+ * Usage counts keep growing between pages, so a {@code usageCount} walk is only approximately stable.
+ * Clients only ever see the opaque token produced by {@link #encode()}.
+ */
+public record PromptCursor(String sortBy, Sort.Direction direction, KeysetScrollPosition position) {
+    
+    private static final Set<String> SORT_FIELDS = Set.of("id", "createdAt", "updatedAt", "title", "usageCount");
+    
+    public static PromptCursor parse(String token, String sortBy, Sort.Direction direction) {
+        if (token == null || token.isBlank()) {
+            if (!SORT_FIELDS.contains(sortBy)) {
+                throw new IllegalArgumentException("Cursor paging supports sortBy " + SORT_FIELDS);
+            }
+            return new PromptCursor(sortBy, direction, ScrollPosition.keyset());
+        }
+        
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = decoded.split("\n", 4);
+            if (parts.length != 4 || !SORT_FIELDS.contains(parts[0])) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            Map<String, Object> keys = new LinkedHashMap<>();
+            keys.put(parts[0], switch (parts[0]) {
+                case "title" -> parts[3];
+                case "id" -> UUID.fromString(parts[3]);
+                case "usageCount" -> Long.valueOf(parts[3]);
+                default -> LocalDateTime.parse(parts[3]);
+            });
+            keys.put("id", UUID.fromString(parts[2]));
+            return new PromptCursor(parts[0], Sort.Direction.fromString(parts[1]), ScrollPosition.forward(keys));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+    
+    public Sort sort() {
+        if (sortBy.equals("id")) {
+            return Sort.by(direction, "id");
+        }
+        return Sort.by(direction, sortBy).and(Sort.by(direction, "id"));
+    }
+    
+    public PromptCursor next(ScrollPosition next) {
+        return new PromptCursor(sortBy, direction, (KeysetScrollPosition) next);
+    }
+    
+    public String encode() {
+        Map<String, Object> keys = position.getKeys();
+        String raw = sortBy + "\n" + direction.name() + "\n" + keys.get("id") + "\n" + keys.get(sortBy);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
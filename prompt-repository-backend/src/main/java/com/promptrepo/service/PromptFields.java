@@ -0,0 +1,80 @@
+package com.promptrepo.service;
+
+import com.promptrepo.dto.CursorPage;
+import com.promptrepo.dto.PromptDto;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Sparse fieldset requested through {@code fields=}. When every requested field is part of the summary
+ * projection the listing is read without loading prompt entities, content, categories or variables.
+ */
+public record PromptFields(Set<String> names) {
+    
+    private static final List<String> ALL_FIELDS = List.of(
+            "id", "title", "description", "content", "categories", "tags", "variables", "createdAt", "updatedAt");
+    private static final Set<String> SUMMARY_FIELDS = Set.of(
+            "id", "title", "description", "tags", "createdAt", "updatedAt");
+    
+    public static PromptFields parse(String fields) {
+        Set<String> names = Arrays.stream(fields.split(","))
+                .map(String::trim)
+                .filter(name -> !name.isEmpty())
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        for (String name : names) {
+            if (!ALL_FIELDS.contains(name)) {
+                throw new IllegalArgumentException("Unknown field '" + name + "', expected one of " + ALL_FIELDS);
+            }
+        }
+        names.add("id");
+        return new PromptFields(names);
+    }
+    
+    public boolean isSummary() {
+        return SUMMARY_FIELDS.containsAll(names);
+    }
+    
+    public boolean includes(String name) {
+        return names.contains(name);
+    }
+    
+    public Map<String, Object> select(PromptDto prompt) {
+        Map<String, Object> selected = new LinkedHashMap<>();
+        for (String name : ALL_FIELDS) {
+            if (names.contains(name)) {
+                selected.put(name, value(prompt, name));
+            }
+        }
+        return selected;
+    }
+    
+    public CursorPage<Map<String, Object>> select(CursorPage<PromptDto> page) {
+        return CursorPage.<Map<String, Object>>builder()
+                .content(page.getContent().stream().map(this::select).collect(Collectors.toList()))
+                .nextCursor(page.getNextCursor())
+                .hasNext(page.isHasNext())
+                .size(page.getSize())
+                .build();
+    }
+    
+    private static Object value(PromptDto prompt, String name) {
+        return switch (name) {
+            case "id" -> prompt.getId();
+            case "title" -> prompt.getTitle();
+            case "description" -> prompt.getDescription();
+            case "content" -> prompt.getContent();
+            case "categories" -> prompt.getCategories();
+            case "tags" -> prompt.getTags();
+            case "variables" -> prompt.getVariables();
+            case "createdAt" -> prompt.getCreatedAt();
+            case "updatedAt" -> prompt.getUpdatedAt();
+            default -> throw new IllegalArgumentException("Unknown field " + name);
+        };
+    }
+}
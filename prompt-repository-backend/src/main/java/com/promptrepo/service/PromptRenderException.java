@@ -0,0 +1,16 @@
+package com.promptrepo.service;
+
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+public class PromptRenderException extends IllegalArgumentException {
+    
+    private final List<String> errors;
+    
+    public PromptRenderException(List<String> errors) {
+        super(String.join("; ", errors));
+        this.errors = errors;
+    }
+}
@@ -0,0 +1,65 @@
+package com.promptrepo.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.promptrepo.config.ReplicaRoutingDataSource;
+import com.promptrepo.dto.RenderedPromptDto;
+import com.promptrepo.event.PromptChangedEvent;
+import com.promptrepo.model.Prompt;
+import com.promptrepo.repository.PromptRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Service
+@RequiredArgsConstructor
+public class PromptRenderService {
+    
+    private static final int MAX_CACHED_TEMPLATES = 10_000;
+    // Same lifetime as cached prompt DTOs, which bounds staleness from writes committed on other nodes
+    private static final Duration CACHED_TEMPLATE_TTL = Duration.ofMinutes(10);
+    
+    private final PromptRepository promptRepository;
+    
+    // W-TinyLFU keeps the frequently rendered templates once full, instead of admitting nothing more
+    private final Cache<String, CompiledTemplate> templates = Caffeine.newBuilder()
+            .maximumSize(MAX_CACHED_TEMPLATES)
+            .expireAfterWrite(CACHED_TEMPLATE_TTL)
+            .build();
+    private final AtomicLong generation = new AtomicLong();
+    
+    public RenderedPromptDto renderPrompt(String id, Map<String, Object> values) {
+        return RenderedPromptDto.builder()
+                .promptId(id)
+                .content(getTemplate(id).render(values))
+                .build();
+    }
+    
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onPromptChanged(PromptChangedEvent event) {
+        generation.incrementAndGet();
+        templates.invalidate(event.id());
+    }
+    
+    private CompiledTemplate getTemplate(String id) {
+        CompiledTemplate template = templates.getIfPresent(id);
+        if (template != null) {
+            return template;
+        }
+        
+        long loadedAt = generation.get();
+        Prompt prompt = ReplicaRoutingDataSource.onPrimary(() -> promptRepository.findWithVariablesById(Ids.parse(id)))
+                .orElseThrow(() -> new IllegalArgumentException("Prompt not found"));
+        template = CompiledTemplate.compile(prompt.getContent(), prompt.getVariables());
+        // Skip caching if a write committed while loading; the loaded copy may predate it
+        if (generation.get() == loadedAt) {
+            templates.put(id, template);
+        }
+        return template;
+    }
+}
@@ -0,0 +1,141 @@
+package com.promptrepo.service;
+
+import com.promptrepo.event.ChangeType;
+import com.promptrepo.event.PromptChangedEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Records a revision for every prompt write that changes its title, description or content.
+ * Like {@link PromptChangeLog}, writes are buffered per transaction and flushed in batches just before
+ * commit, so a bulk import costs a handful of statements per batch rather than several per prompt.
+ */
+@Component
+@RequiredArgsConstructor
+public class PromptRevisionLog {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PromptContentStore contentStore;
+
+    private record Head(int revision, String title, String description, String contentHash, int depth) {
+    }
+
+    private record RevisionRow(String promptId, int revision, String title, String description, String contentHash) {
+    }
+
+    @EventListener
+    @SuppressWarnings("unchecked")
+    public void onPromptChanged(PromptChangedEvent event) {
+        Map<String, PromptChangedEvent> pending =
+                (Map<String, PromptChangedEvent>) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            Map<String, PromptChangedEvent> buffer = new LinkedHashMap<>();
+            TransactionSynchronizationManager.bindResource(this, buffer);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    write(buffer.values());
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(PromptRevisionLog.this);
+                }
+            });
+            pending = buffer;
+        }
+        // Only the state a transaction commits becomes a revision
+        pending.put(event.id(), event);
+    }
+
+    private void write(Iterable<PromptChangedEvent> events) {
+        List<UUID> deleted = new ArrayList<>();
+        List<PromptChangedEvent> written = new ArrayList<>();
+        for (PromptChangedEvent event : events) {
+            if (event.type() == ChangeType.DELETED) {
+                deleted.add(UUID.fromString(event.id()));
+            } else {
+                written.add(event);
+            }
+        }
+
+        if (!deleted.isEmpty()) {
+            jdbcTemplate.update("DELETE FROM prompt_revisions WHERE prompt_id IN ("
+                    + PromptContentStore.placeholders(deleted.size()) + ")", deleted.toArray());
+        }
+        if (written.isEmpty()) {
+            return;
+        }
+
+        Object[] ids = written.stream().map(event -> UUID.fromString(event.id())).toArray();
+        // Serialises concurrent writers of the same prompt so revision numbers are allocated in order
+        jdbcTemplate.query("SELECT id FROM prompts WHERE id IN (" + PromptContentStore.placeholders(ids.length)
+                + ") ORDER BY id FOR UPDATE", rs -> null, ids);
+        Map<String, Head> heads = new HashMap<>();
+        jdbcTemplate.query("SELECT DISTINCT ON (r.prompt_id) r.prompt_id, r.revision, r.title, r.description, " +
+                "r.content_hash, c.depth FROM prompt_revisions r JOIN prompt_contents c ON c.hash = r.content_hash " +
+                "WHERE r.prompt_id IN (" + PromptContentStore.placeholders(ids.length) + ") " +
+                "ORDER BY r.prompt_id, r.revision DESC", rs -> {
+                    heads.put(rs.getString("prompt_id"), new Head(
+                            rs.getInt("revision"),
+                            rs.getString("title"),
+                            rs.getString("description"),
+                            rs.getString("content_hash"),
+                            rs.getInt("depth")));
+                }, ids);
+
+        Map<String, String> hashes = new HashMap<>();
+        written.forEach(event -> hashes.put(event.id(), PromptContentStore.hash(event.content())));
+        Set<String> stored = new HashSet<>(contentStore.findExisting(new HashSet<>(hashes.values())));
+
+        List<RevisionRow> revisions = new ArrayList<>();
+        List<PromptContentStore.EncodedContent> contents = new ArrayList<>();
+        for (PromptChangedEvent event : written) {
+            Head head = heads.get(event.id());
+            String hash = hashes.get(event.id());
+            if (head != null && head.contentHash().equals(hash)
+                    && Objects.equals(head.title(), event.title())
+                    && Objects.equals(head.description(), event.description())) {
+                continue;
+            }
+
+            if (stored.add(hash)) {
+                contents.add(head != null
+                        ? contentStore.encode(hash, event.content(), head.contentHash(),
+                                contentStore.load(head.contentHash()), head.depth())
+                        : contentStore.encode(hash, event.content(), null, null, 0));
+            }
+            revisions.add(new RevisionRow(event.id(), head != null ? head.revision() + 1 : 1,
+                    event.title(), event.description(), hash));
+        }
+
+        contentStore.insert(contents);
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate("INSERT INTO prompt_revisions " +
+                        "(prompt_id, revision, title, description, content_hash, created_at) VALUES (?, ?, ?, ?, ?, ?)",
+                revisions, revisions.size(), (ps, row) -> {
+                    ps.setObject(1, UUID.fromString(row.promptId()));
+                    ps.setInt(2, row.revision());
+                    ps.setString(3, row.title());
+                    ps.setString(4, row.description());
+                    ps.setString(5, row.contentHash());
+                    ps.setTimestamp(6, now);
+                });
+    }
+}
@@ -0,0 +1,204 @@
+package com.promptrepo.service;
+
+import com.promptrepo.dto.PromptRevisionDiffDto;
+import com.promptrepo.dto.PromptRevisionDto;
+import com.promptrepo.model.PromptRevision;
+import com.promptrepo.repository.PromptRepository;
+import com.promptrepo.repository.PromptRevisionRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class PromptRevisionService {
+
+    private static final int DIFF_CONTEXT = 3;
+    // Beyond this many line pairs the changed region is reported as a single replacement
+    private static final long MAX_DIFF_CELLS = 1_000_000;
+
+    private final PromptRepository promptRepository;
+    private final PromptRevisionRepository revisionRepository;
+    private final PromptContentStore contentStore;
+
+    private record Edit(char op, String line, int oldLine, int newLine) {
+    }
+
+    /**
+     * Revision metadata, newest first. Content is left out; fetch a single revision to read it.
+     */
+    public List<PromptRevisionDto> getRevisions(String promptId) {
+        UUID id = Ids.parse(promptId);
+        if (!promptRepository.existsById(id)) {
+            throw new IllegalArgumentException("Prompt not found");
+        }
+        return revisionRepository.findByPromptIdOrderByRevisionDesc(id).stream()
+                .map(revision -> toDto(revision, null))
+                .collect(Collectors.toList());
+    }
+
+    public PromptRevisionDto getRevision(String promptId, int revision) {
+        PromptRevision found = findRevision(promptId, revision);
+        return toDto(found, contentStore.load(found.getContentHash()));
+    }
+
+    /**
+     * Unified diff of the content of two revisions, with {@value #DIFF_CONTEXT} lines of context.
+     */
+    public PromptRevisionDiffDto diff(String promptId, int fromRevision, int toRevision) {
+        PromptRevision from = findRevision(promptId, fromRevision);
+        PromptRevision to = findRevision(promptId, toRevision);
+        String diff = from.getContentHash().equals(to.getContentHash())
+                ? ""
+                : unifiedDiff(contentStore.load(from.getContentHash()), contentStore.load(to.getContentHash()),
+                        "revision " + fromRevision, "revision " + toRevision);
+        return PromptRevisionDiffDto.builder()
+                .promptId(promptId)
+                .fromRevision(fromRevision)
+                .toRevision(toRevision)
+                .fromTitle(from.getTitle())
+                .toTitle(to.getTitle())
+                .diff(diff)
+                .build();
+    }
+
+    private PromptRevision findRevision(String promptId, int revision) {
+        return revisionRepository.findByPromptIdAndRevision(Ids.parse(promptId), revision)
+                .orElseThrow(() -> new IllegalArgumentException("Revision not found"));
+    }
+
+    static String unifiedDiff(String oldText, String newText, String oldLabel, String newLabel) {
+        List<Edit> edits = edits(oldText.lines().toList(), newText.lines().toList());
+        StringBuilder out = new StringBuilder();
+        out.append("--- ").append(oldLabel).append('\n');
+        out.append("+++ ").append(newLabel).append('\n');
+
+        int size = edits.size();
+        int i = 0;
+        while (i < size) {
+            if (edits.get(i).op() == ' ') {
+                i++;
+                continue;
+            }
+            int start = Math.max(0, i - DIFF_CONTEXT);
+            int end = i + 1;
+            int j = i + 1;
+            while (j < size) {
+                if (edits.get(j).op() != ' ') {
+                    end = ++j;
+                    continue;
+                }
+                int run = j;
+                while (run < size && edits.get(run).op() == ' ') {
+                    run++;
+                }
+                // Changes separated by little enough context share a hunk
+                if (run == size || run - j > 2 * DIFF_CONTEXT) {
+                    break;
+                }
+                j = run;
+            }
+            int stop = Math.min(size, end + DIFF_CONTEXT);
+            appendHunk(out, edits.subList(start, stop));
+            i = stop;
+        }
+        return out.toString();
+    }
+
+    private static void appendHunk(StringBuilder out, List<Edit> hunk) {
+        int oldCount = 0;
+        int newCount = 0;
+        for (Edit edit : hunk) {
+            if (edit.op() != '+') oldCount++;
+            if (edit.op() != '-') newCount++;
+        }
+        Edit first = hunk.get(0);
+        // Positions are 1-based; an empty side points at the line before the hunk
+        int oldStart = oldCount == 0 ? first.oldLine() : first.oldLine() + 1;
+        int newStart = newCount == 0 ? first.newLine() : first.newLine() + 1;
+        out.append("@@ -").append(oldStart).append(',').append(oldCount)
+                .append(" +").append(newStart).append(',').append(newCount).append(" @@\n");
+        for (Edit edit : hunk) {
+            out.append(edit.op()).append(edit.line()).append('\n');
+        }
+    }
+
+    // Line edit script: common prefix and suffix are matched directly, the rest by longest common subsequence
+    private static List<Edit> edits(List<String> a, List<String> b) {
+        int prefix = 0;
+        while (prefix < a.size() && prefix < b.size() && a.get(prefix).equals(b.get(prefix))) {
+            prefix++;
+        }
+        int suffix = 0;
+        while (suffix < a.size() - prefix && suffix < b.size() - prefix
+                && a.get(a.size() - 1 - suffix).equals(b.get(b.size() - 1 - suffix))) {
+            suffix++;
+        }
+
+        List<Edit> edits = new ArrayList<>(a.size() + b.size());
+        for (int k = 0; k < prefix; k++) {
+            edits.add(new Edit(' ', a.get(k), k, k));
+        }
+
+        int aEnd = a.size() - suffix;
+        int bEnd = b.size() - suffix;
+        int m = aEnd - prefix;
+        int n = bEnd - prefix;
+        int oldLine = prefix;
+        int newLine = prefix;
+        if ((long) m * n <= MAX_DIFF_CELLS) {
+            int[][] lcs = new int[m + 1][n + 1];
+            for (int x = m - 1; x >= 0; x--) {
+                for (int y = n - 1; y >= 0; y--) {
+                    lcs[x][y] = a.get(prefix + x).equals(b.get(prefix + y))
+                            ? lcs[x + 1][y + 1] + 1
+                            : Math.max(lcs[x + 1][y], lcs[x][y + 1]);
+                }
+            }
+            int x = 0;
+            int y = 0;
+            while (x < m || y < n) {
+                if (x < m && y < n && a.get(prefix + x).equals(b.get(prefix + y))) {
+                    edits.add(new Edit(' ', a.get(prefix + x), oldLine++, newLine++));
+                    x++;
+                    y++;
+                } else if (x < m && (y == n || lcs[x + 1][y] >= lcs[x][y + 1])) {
+                    edits.add(new Edit('-', a.get(prefix + x), oldLine++, newLine));
+                    x++;
+                } else {
+                    edits.add(new Edit('+', b.get(prefix + y), oldLine, newLine++));
+                    y++;
+                }
+            }
+        } else {
+            for (int x = prefix; x < aEnd; x++) {
+                edits.add(new Edit('-', a.get(x), oldLine++, newLine));
+            }
+            for (int y = prefix; y < bEnd; y++) {
+                edits.add(new Edit('+', b.get(y), oldLine, newLine++));
+            }
+        }
+
+        for (int k = 0; k < suffix; k++) {
+            edits.add(new Edit(' ', a.get(aEnd + k), oldLine++, newLine++));
+        }
+        return edits;
+    }
+
+    private PromptRevisionDto toDto(PromptRevision revision, String content) {
+        return PromptRevisionDto.builder()
+                .revision(revision.getRevision())
+                .title(revision.getTitle())
+                .description(revision.getDescription())
+                .contentHash(revision.getContentHash())
+                .content(content)
+                .createdAt(revision.getCreatedAt())
+                .build();
+    }
+}
@@ -1,19 +1,50 @@
 package com.promptrepo.service;
 
+import com.promptrepo.config.CacheConfig;
+import com.promptrepo.config.ReplicaRoutingDataSource;
 import com.promptrepo.dto.CategoryDto;
+import com.promptrepo.dto.CursorPage;
+import com.promptrepo.dto.PromptBatchDto;
+import com.promptrepo.dto.PromptChangeDto;
+import com.promptrepo.dto.PromptChangesDto;
 import com.promptrepo.dto.PromptDto;
 import com.promptrepo.dto.PromptVariableDto;
+import com.promptrepo.dto.TagCountDto;
+import com.promptrepo.dto.TrendingPromptDto;
+import com.promptrepo.event.CategoryPromptCountChangedEvent;
+import com.promptrepo.event.ChangeType;
+import com.promptrepo.event.PromptChangedEvent;
 import com.promptrepo.model.*;
 import com.promptrepo.repository.CategoryRepository;
+import com.promptrepo.repository.PromptChangeRepository;
 import com.promptrepo.repository.PromptRepository;
+import com.promptrepo.repository.PromptUsageHourRepository;
+import com.promptrepo.search.PromptSearchIndex;
+import com.promptrepo.search.VectorIndex;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Window;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -21,8 +52,19 @@ import java.util.stream.Collectors;
 @Transactional
 public class PromptService {
     
+    // Matches hibernate.default_batch_fetch_size, so each lazy collection loads in a single query
+    public static final int MAX_BATCH_SIZE = 100;
+    // Nearest neighbours have no natural end, so semantic results stop here or below MIN_SEMANTIC_SIMILARITY
+    private static final int MAX_SEMANTIC_RESULTS = 1000;
+    private static final double MIN_SEMANTIC_SIMILARITY = 0.1;
+    
     private final PromptRepository promptRepository;
     private final CategoryRepository categoryRepository;
+    private final PromptChangeRepository promptChangeRepository;
+    private final PromptUsageHourRepository promptUsageHourRepository;
+    private final PromptSearchIndex searchIndex;
+    private final VectorIndex vectorIndex;
+    private final ApplicationEventPublisher eventPublisher;
     
     public Prompt createPrompt(String title, String content, String description,
                               Set<String> categoryIds, Set<String> tags,
@@ -37,11 +79,12 @@ public class PromptService {
         
         // Add categories
         if (categoryIds != null && !categoryIds.isEmpty()) {
-            Set<Category> categories = new HashSet<>(categoryRepository.findAllById(categoryIds));
+            Set<Category> categories = new HashSet<>(categoryRepository.findAllById(Ids.parseAll(categoryIds)));
             prompt.setCategories(categories);
         }
         
         prompt = promptRepository.save(prompt);
+        adjustPromptCounts(prompt.getCategories(), 1);
         
         // Add variables
         if (variables != null && !variables.isEmpty()) {
@@ -60,6 +103,7 @@ public class PromptService {
             prompt = promptRepository.save(prompt);
         }
         
+        eventPublisher.publishEvent(PromptChangedEvent.of(ChangeType.CREATED, prompt));
         return prompt;
     }
     
@@ -67,7 +111,8 @@ public class PromptService {
                               Set<String> categoryIds, Set<String> tags,
                               Set<PromptVariableDto> variables) {
         
-        Prompt prompt = promptRepository.findById(id)
+        // Locked, so the category diff below is taken against the committed state
+        Prompt prompt = promptRepository.findForUpdateById(Ids.parse(id))
                 .orElseThrow(() -> new IllegalArgumentException("Prompt not found"));
         
         if (title != null) prompt.setTitle(title);
@@ -77,44 +122,337 @@ public class PromptService {
         
         // Update categories
         if (categoryIds != null) {
-            Set<Category> categories = new HashSet<>(categoryRepository.findAllById(categoryIds));
+            Set<UUID> requestedIds = Ids.parseAll(categoryIds);
+            Set<Category> categories = new HashSet<>(categoryRepository.findAllById(requestedIds));
+            Set<UUID> previousIds = prompt.getCategories().stream()
+                    .map(Category::getId)
+                    .collect(Collectors.toSet());
+            adjustPromptCounts(prompt.getCategories().stream()
+                    .filter(category -> !requestedIds.contains(category.getId()))
+                    .collect(Collectors.toSet()), -1);
+            adjustPromptCounts(categories.stream()
+                    .filter(category -> !previousIds.contains(category.getId()))
+                    .collect(Collectors.toSet()), 1);
             prompt.setCategories(categories);
         }
         
-        return promptRepository.save(prompt);
+        prompt = promptRepository.save(prompt);
+        eventPublisher.publishEvent(PromptChangedEvent.of(ChangeType.UPDATED, prompt));
+        return prompt;
     }
     
     public void deletePrompt(String id) {
-        Prompt prompt = promptRepository.findById(id)
+        Prompt prompt = promptRepository.findForUpdateById(Ids.parse(id))
                 .orElseThrow(() -> new IllegalArgumentException("Prompt not found"));
+        eventPublisher.publishEvent(PromptChangedEvent.of(ChangeType.DELETED, prompt));
+        adjustPromptCounts(prompt.getCategories(), -1);
         promptRepository.delete(prompt);
     }
     
+    @Transactional(readOnly = true)
     public Page<PromptDto> getAllPrompts(Pageable pageable) {
-        return promptRepository.findAll(pageable).map(this::toDto);
+        return toDtoPage(promptRepository.findAll(pageable));
     }
     
+    @Transactional(readOnly = true)
     public Page<PromptDto> searchPrompts(String search, Pageable pageable) {
-        return promptRepository.searchPrompts(search, pageable).map(this::toDto);
+        if (!searchIndex.isReady()) {
+            return toDtoPage(promptRepository.searchPrompts(search, pageable));
+        }
+        
+        PromptSearchIndex.SearchResult result = searchIndex.search(search, pageable.getOffset(), pageable.getPageSize());
+        Map<String, Prompt> prompts = promptRepository.findAllById(Ids.parseAll(result.ids())).stream()
+                .collect(Collectors.toMap(prompt -> prompt.getId().toString(), Function.identity()));
+        
+        List<PromptDto> content = result.ids().stream()
+                .map(prompts::get)
+                .filter(Objects::nonNull)
+                .map(prompt -> {
+                    PromptDto dto = toDto(prompt);
+                    dto.setHighlight(searchIndex.highlight(prompt, search));
+                    return dto;
+                })
+                .collect(Collectors.toList());
+        return new PageImpl<>(content, pageable, result.totalHits());
     }
     
+    /**
+     * Prompts ranked by closeness in meaning to {@code query} rather than by shared keywords.
+     * Falls back to keyword search while the semantic index is loading.
+     */
+    @Transactional(readOnly = true)
+    public Page<PromptDto> semanticSearchPrompts(String query, Pageable pageable) {
+        if (!vectorIndex.isReady()) {
+            return searchPrompts(query, pageable);
+        }
+        if (pageable.getOffset() >= MAX_SEMANTIC_RESULTS) {
+            return Page.empty(pageable);
+        }
+        
+        int offset = (int) pageable.getOffset();
+        int end = Math.min(offset + pageable.getPageSize(), MAX_SEMANTIC_RESULTS);
+        // One past the page, so the total tells clients whether a next page exists without ranking everything
+        List<VectorIndex.Match> matches = vectorIndex.search(query, end + 1).stream()
+                .filter(match -> match.similarity() >= MIN_SEMANTIC_SIMILARITY)
+                .limit(MAX_SEMANTIC_RESULTS)
+                .collect(Collectors.toList());
+        List<VectorIndex.Match> page = matches.subList(Math.min(offset, matches.size()), Math.min(end, matches.size()));
+        Map<String, Prompt> prompts = promptRepository.findAllById(
+                        Ids.parseAll(page.stream().map(VectorIndex.Match::id).collect(Collectors.toList()))).stream()
+                .collect(Collectors.toMap(prompt -> prompt.getId().toString(), Function.identity()));
+        
+        List<PromptDto> content = page.stream()
+                .filter(match -> prompts.containsKey(match.id()))
+                .map(match -> {
+                    PromptDto dto = toDto(prompts.get(match.id()));
+                    dto.setSimilarity(match.similarity());
+                    return dto;
+                })
+                .collect(Collectors.toList());
+        return new PageImpl<>(content, pageable, matches.size());
+    }
+    
+    @Transactional(readOnly = true)
+    @Cacheable(CacheConfig.PROMPTS)
     public PromptDto getPromptById(String id) {
-        Prompt prompt = promptRepository.findById(id)
-                .orElseThrow(() -> new IllegalArgumentException("Prompt not found"));
-        return toDto(prompt);
+        return ReplicaRoutingDataSource.onPrimary(() -> {
+            Prompt prompt = promptRepository.findById(Ids.parse(id))
+                    .orElseThrow(() -> new IllegalArgumentException("Prompt not found"));
+            return toDto(prompt);
+        });
     }
     
+    /**
+     * Loads up to {@link #MAX_BATCH_SIZE} prompts in request order with a fixed number of queries.
+     * Duplicate ids are returned once; unknown ids are listed under {@code missing}.
+     */
+    @Transactional(readOnly = true)
+    public PromptBatchDto getPromptsByIds(List<String> ids) {
+        if (ids == null || ids.isEmpty()) {
+            throw new IllegalArgumentException("ids must not be empty");
+        }
+        Set<String> uniqueIds = new LinkedHashSet<>(ids);
+        if (uniqueIds.size() > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("At most " + MAX_BATCH_SIZE + " ids per batch");
+        }
+        
+        Map<String, Prompt> prompts = promptRepository.findAllById(Ids.parseValid(uniqueIds)).stream()
+                .collect(Collectors.toMap(prompt -> prompt.getId().toString(), Function.identity()));
+        return PromptBatchDto.builder()
+                .prompts(uniqueIds.stream()
+                        .map(prompts::get)
+                        .filter(Objects::nonNull)
+                        .map(this::toDto)
+                        .collect(Collectors.toList()))
+                .missing(uniqueIds.stream()
+                        .filter(id -> !prompts.containsKey(id))
+                        .collect(Collectors.toList()))
+                .build();
+    }
+    
+    @Transactional(readOnly = true)
     public Page<PromptDto> getPromptsByCategory(String categoryId, Pageable pageable) {
-        return promptRepository.findByCategoryId(categoryId, pageable).map(this::toDto);
+        return toDtoPage(promptRepository.findByCategoryId(Ids.parse(categoryId), pageable));
     }
     
+    @Transactional(readOnly = true)
     public Page<PromptDto> getPromptsByTag(String tag, Pageable pageable) {
-        return promptRepository.findByTag(tag, pageable).map(this::toDto);
+        return toDtoPage(promptRepository.findByTag(tag, pageable));
+    }
+    
+    @Transactional(readOnly = true)
+    public Page<Map<String, Object>> getAllPrompts(Pageable pageable, PromptFields fields) {
+        if (fields.isSummary()) {
+            return toSummaryPage(promptRepository.findSummaries(pageable), fields);
+        }
+        return getAllPrompts(pageable).map(fields::select);
+    }
+    
+    @Transactional(readOnly = true)
+    public Page<Map<String, Object>> getPromptsByCategory(String categoryId, Pageable pageable, PromptFields fields) {
+        if (fields.isSummary()) {
+            return toSummaryPage(promptRepository.findSummariesByCategoryId(Ids.parse(categoryId), pageable), fields);
+        }
+        return getPromptsByCategory(categoryId, pageable).map(fields::select);
+    }
+    
+    @Transactional(readOnly = true)
+    public Page<Map<String, Object>> getPromptsByTag(String tag, Pageable pageable, PromptFields fields) {
+        if (fields.isSummary()) {
+            return toSummaryPage(promptRepository.findSummariesByTag(tag, pageable), fields);
+        }
+        return getPromptsByTag(tag, pageable).map(fields::select);
+    }
+    
+    /**
+     * Tag counts for the whole corpus, prompts in one category, or prompts matching a search query.
+     * The first two are a single grouped query over prompt_tags; the search facet counts over the index.
+     */
+    @Transactional(readOnly = true)
+    public List<TagCountDto> getTagCounts(String categoryId, String search, int limit) {
+        if (search != null && searchIndex.isReady()) {
+            return searchIndex.tagFacets(search, limit).entrySet().stream()
+                    .map(entry -> TagCountDto.builder().tag(entry.getKey()).count(entry.getValue()).build())
+                    .collect(Collectors.toList());
+        }
+        if (search != null) {
+            throw new IllegalStateException("Search index is still building");
+        }
+        
+        List<PromptRepository.TagCount> counts = categoryId != null
+                ? promptRepository.countTagsByCategoryId(Ids.parse(categoryId), Limit.of(limit))
+                : promptRepository.countTags(Limit.of(limit));
+        return counts.stream()
+                .map(count -> TagCountDto.builder().tag(count.getTag()).count(count.getCount()).build())
+                .collect(Collectors.toList());
+    }
+    
+    /**
+     * Most used prompts over the last {@code hours} hourly buckets, the current partial hour included.
+     * Uses still waiting in {@link PromptUsageTracker} are not counted yet.
+     */
+    @Transactional(readOnly = true)
+    public List<TrendingPromptDto> getTrending(int hours, int limit) {
+        LocalDateTime since = LocalDateTime.now().truncatedTo(ChronoUnit.HOURS).minusHours(hours - 1);
+        return promptUsageHourRepository.findTrending(since, Limit.of(limit)).stream()
+                .map(trending -> TrendingPromptDto.builder()
+                        .id(trending.getId().toString())
+                        .title(trending.getTitle())
+                        .uses(trending.getUses())
+                        .build())
+                .collect(Collectors.toList());
+    }
+    
+    @Transactional(readOnly = true)
+    public CursorPage<PromptDto> getAllPrompts(PromptCursor cursor, int size) {
+        return toCursorPage(promptRepository.findAllBy(cursor.position(), cursor.sort(), Limit.of(size)), cursor);
+    }
+    
+    @Transactional(readOnly = true)
+    public CursorPage<PromptDto> getPromptsByCategory(String categoryId, PromptCursor cursor, int size) {
+        return toCursorPage(promptRepository.findByCategoriesId(
+                Ids.parse(categoryId), cursor.position(), cursor.sort(), Limit.of(size)), cursor);
+    }
+    
+    @Transactional(readOnly = true)
+    public CursorPage<PromptDto> getPromptsByTag(String tag, PromptCursor cursor, int size) {
+        return toCursorPage(promptRepository.findByTagsContaining(
+                tag, cursor.position(), cursor.sort(), Limit.of(size)), cursor);
+    }
+    
+    /**
+     * Returns prompts created, updated or deleted after {@code since}, collapsed to the latest change per
+     * prompt. Without a token only the current position is returned, for clients that just did a full listing.
+     */
+    @Transactional(readOnly = true)
+    public PromptChangesDto getChanges(Long since, int limit) {
+        if (since == null) {
+            return PromptChangesDto.builder()
+                    .changes(List.of())
+                    .nextToken(String.valueOf(promptChangeRepository.findLatestId()))
+                    .hasMore(false)
+                    .build();
+        }
+        
+        List<PromptChange> changes = promptChangeRepository.findByIdGreaterThanOrderByIdAsc(since, Limit.of(limit));
+        Map<UUID, PromptChange> latest = new LinkedHashMap<>();
+        for (PromptChange change : changes) {
+            latest.remove(change.getPromptId());
+            latest.put(change.getPromptId(), change);
+        }
+        
+        Set<UUID> liveIds = latest.values().stream()
+                .filter(change -> change.getType() != ChangeType.DELETED)
+                .map(PromptChange::getPromptId)
+                .collect(Collectors.toSet());
+        Map<UUID, Prompt> prompts = promptRepository.findAllById(liveIds).stream()
+                .collect(Collectors.toMap(Prompt::getId, Function.identity()));
+        
+        List<PromptChangeDto> items = latest.values().stream()
+                .map(change -> {
+                    Prompt prompt = prompts.get(change.getPromptId());
+                    return PromptChangeDto.builder()
+                            .promptId(change.getPromptId().toString())
+                            .type(prompt != null ? change.getType() : ChangeType.DELETED)
+                            .changedAt(change.getChangedAt())
+                            .prompt(prompt != null ? toDto(prompt) : null)
+                            .build();
+                })
+                .collect(Collectors.toList());
+        
+        long nextToken = changes.isEmpty() ? since : changes.get(changes.size() - 1).getId();
+        return PromptChangesDto.builder()
+                .changes(items)
+                .nextToken(String.valueOf(nextToken))
+                .hasMore(changes.size() == limit)
+                .build();
+    }
+    
+    /**
+     * Version stamp of everything a listing depends on: the latest prompt change and the category table.
+     * Read from the database, so it follows writes made through any instance.
+     */
+    @Transactional(readOnly = true)
+    public String getCatalogueVersion() {
+        PromptChangeRepository.CatalogueStamp stamp = promptChangeRepository.findCatalogueStamp();
+        return Long.toHexString(stamp.getLatestChange().longValue()) + "-"
+                + Long.toHexString(stamp.getCategoryCount().longValue()) + "-"
+                + Long.toHexString(stamp.getCategoriesUpdated().longValue());
+    }
+    
+    private void adjustPromptCounts(Collection<Category> categories, int delta) {
+        if (categories.isEmpty()) {
+            return;
+        }
+        categoryRepository.adjustPromptCount(
+                categories.stream().map(Category::getId).collect(Collectors.toSet()), delta);
+        // Keep already-loaded entities in step with the bulk update for DTOs built in this session
+        categories.forEach(category -> {
+            category.setPromptCount(category.getPromptCount() + delta);
+            eventPublisher.publishEvent(new CategoryPromptCountChangedEvent(category.getId().toString(), delta));
+        });
+    }
+    
+    private Page<PromptDto> toDtoPage(Page<Prompt> page) {
+        return page.map(this::toDto);
+    }
+    
+    // Scalar columns from the projection plus, when asked for, one query for the page's tags
+    private Page<Map<String, Object>> toSummaryPage(Page<PromptRepository.PromptSummary> page, PromptFields fields) {
+        Map<UUID, Set<String>> tags = new HashMap<>();
+        if (fields.includes("tags") && page.hasContent()) {
+            List<UUID> ids = page.getContent().stream()
+                    .map(PromptRepository.PromptSummary::getId)
+                    .collect(Collectors.toList());
+            promptRepository.findTagsByPromptIds(ids).forEach(row ->
+                    tags.computeIfAbsent(row.getPromptId(), id -> new HashSet<>()).add(row.getTag()));
+        }
+        
+        return page.map(summary -> fields.select(PromptDto.builder()
+                .id(summary.getId().toString())
+                .title(summary.getTitle())
+                .description(summary.getDescription())
+                .tags(tags.getOrDefault(summary.getId(), Set.of()))
+                .createdAt(summary.getCreatedAt())
+                .updatedAt(summary.getUpdatedAt())
+                .build()));
+    }
+    
+    private CursorPage<PromptDto> toCursorPage(Window<Prompt> window, PromptCursor cursor) {
+        String nextCursor = window.hasNext() && !window.isEmpty()
+                ? cursor.next(window.positionAt(window.size() - 1)).encode()
+                : null;
+        return CursorPage.<PromptDto>builder()
+                .content(window.getContent().stream().map(this::toDto).collect(Collectors.toList()))
+                .nextCursor(nextCursor)
+                .hasNext(window.hasNext())
+                .size(window.size())
+                .build();
     }
     
-    private PromptDto toDto(Prompt prompt) {
+    PromptDto toDto(Prompt prompt) {
         return PromptDto.builder()
-                .id(prompt.getId())
+                .id(prompt.getId().toString())
                 .title(prompt.getTitle())
                 .content(prompt.getContent())
                 .description(prompt.getDescription())
@@ -130,15 +468,15 @@ public class PromptService {
                 .build();
     }
     
-    private CategoryDto toCategoryDto(Category category) {
+    CategoryDto toCategoryDto(Category category) {
         return CategoryDto.builder()
-                .id(category.getId())
+                .id(category.getId().toString())
                 .name(category.getName())
                 .description(category.getDescription())
                 .icon(category.getIcon())
                 .color(category.getColor())
                 .displayOrder(category.getDisplayOrder())
-                .promptCount(category.getPrompts() != null ? category.getPrompts().size() : 0)
+                .promptCount(category.getPromptCount())
                 .build();
     }
     
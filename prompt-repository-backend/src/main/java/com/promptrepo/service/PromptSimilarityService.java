@@ -0,0 +1,90 @@
+package com.promptrepo.service;
+
+import com.promptrepo.dto.SimilarPromptDto;
+import com.promptrepo.model.Prompt;
+import com.promptrepo.repository.PromptRepository;
+import com.promptrepo.search.MinHashIndex;
+import com.promptrepo.search.VectorIndex;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class PromptSimilarityService {
+    
+    // Estimated Jaccard similarity of content shingles above which a new prompt is reported as a likely copy
+    public static final double DUPLICATE_THRESHOLD = 0.7;
+    // Cosine similarity of hashed n-gram embeddings; unrelated prompts score close to zero
+    public static final double SEMANTIC_THRESHOLD = 0.3;
+    private static final int MAX_DUPLICATES = 5;
+    
+    private final PromptRepository promptRepository;
+    private final MinHashIndex minHashIndex;
+    private final VectorIndex vectorIndex;
+    
+    public List<SimilarPromptDto> findSimilar(String id, double minSimilarity, int limit) {
+        if (!minHashIndex.isReady()) {
+            throw new IllegalStateException("Similarity index is still building");
+        }
+        if (!minHashIndex.contains(id) && !promptRepository.existsById(Ids.parse(id))) {
+            throw new IllegalArgumentException("Prompt not found");
+        }
+        Map<String, Double> matches = new LinkedHashMap<>();
+        minHashIndex.similarTo(id, minSimilarity, limit).forEach(match -> matches.put(match.id(), match.similarity()));
+        return toDtos(matches);
+    }
+    
+    /**
+     * Prompts closest in meaning to prompt {@code id}, whether or not they share its wording.
+     */
+    public List<SimilarPromptDto> findSemanticallySimilar(String id, double minSimilarity, int limit) {
+        if (!vectorIndex.isReady()) {
+            throw new IllegalStateException("Semantic index is still building");
+        }
+        if (!vectorIndex.contains(id) && !promptRepository.existsById(Ids.parse(id))) {
+            throw new IllegalArgumentException("Prompt not found");
+        }
+        Map<String, Double> matches = new LinkedHashMap<>();
+        vectorIndex.similarTo(id, limit).stream()
+                .filter(match -> match.similarity() >= minSimilarity)
+                .forEach(match -> matches.put(match.id(), match.similarity()));
+        return toDtos(matches);
+    }
+    
+    /**
+     * Existing prompts whose content is nearly identical to {@code content}. Empty while the index is building.
+     */
+    public List<SimilarPromptDto> findDuplicates(String content) {
+        if (!minHashIndex.isReady()) {
+            return List.of();
+        }
+        Map<String, Double> matches = new LinkedHashMap<>();
+        minHashIndex.similarToContent(content, DUPLICATE_THRESHOLD, MAX_DUPLICATES)
+                .forEach(match -> matches.put(match.id(), match.similarity()));
+        return toDtos(matches);
+    }
+    
+    // Matches in rank order, id -> similarity
+    private List<SimilarPromptDto> toDtos(Map<String, Double> matches) {
+        if (matches.isEmpty()) {
+            return List.of();
+        }
+        Map<String, String> titles = promptRepository.findAllById(Ids.parseAll(matches.keySet())).stream()
+                .collect(Collectors.toMap(prompt -> prompt.getId().toString(), Prompt::getTitle));
+        return matches.entrySet().stream()
+                .filter(match -> titles.containsKey(match.getKey()))
+                .map(match -> SimilarPromptDto.builder()
+                        .id(match.getKey())
+                        .title(titles.get(match.getKey()))
+                        .similarity(match.getValue())
+                        .build())
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,155 @@
+package com.promptrepo.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts prompt views and renders in memory and adds them to the database in batches.
+ * <p>
+ * Recording a use increments a striped counter and does no database work. Every flush interval the
+ * counters are drained into one batched update of {@code prompts.usage_count} and one batched upsert of
+ * the hourly buckets behind trending, so a crash loses at most one interval of uses.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PromptUsageTracker {
+
+    // Longest trending window that can be asked for
+    public static final int MAX_TRENDING_HOURS = 168;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${promptrepo.usage.flush-interval:30s}")
+    private Duration flushInterval;
+
+    private final Map<UUID, LongAdder> pending = new ConcurrentHashMap<>();
+    private ScheduledExecutorService flusher;
+    private LocalDateTime prunedBefore;
+
+    private record Uses(UUID promptId, long count) {
+    }
+
+    /**
+     * Counts one view or render of a prompt that was just found.
+     */
+    public void recordUse(String promptId) {
+        UUID id = Ids.parse(promptId);
+        LongAdder uses = pending.get(id);
+        if (uses == null) {
+            uses = pending.computeIfAbsent(id, key -> new LongAdder());
+        }
+        uses.increment();
+    }
+
+    @PostConstruct
+    void start() {
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "usage-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(() -> {
+            try {
+                flush();
+            } catch (RuntimeException e) {
+                // Uses stay pending; letting this escape would cancel every later flush
+                log.error("Usage flush failed", e);
+            }
+        }, flushInterval.toMillis(), flushInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    // Runs on the flush thread only, and once more at shutdown
+    void flush() {
+        List<Uses> batch = new ArrayList<>();
+        pending.forEach((id, uses) -> {
+            long count = uses.sumThenReset();
+            if (count > 0) {
+                batch.add(new Uses(id, count));
+            } else if (pending.remove(id, uses)) {
+                // Idle for a whole interval; keeps the map to the prompts in active use. A use that
+                // raced with the removal went to the detached counter and is carried over here.
+                long late = uses.sum();
+                if (late > 0) {
+                    batch.add(new Uses(id, late));
+                }
+            }
+        });
+        if (batch.isEmpty()) {
+            return;
+        }
+        // Same lock order in every flusher, including those of other instances
+        batch.sort((a, b) -> a.promptId().compareTo(b.promptId()));
+
+        LocalDateTime hour = LocalDateTime.now().truncatedTo(ChronoUnit.HOURS);
+        try {
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> write(batch, hour));
+        } catch (RuntimeException e) {
+            // Kept for the next attempt rather than dropped
+            batch.forEach(uses -> pending.computeIfAbsent(uses.promptId(), key -> new LongAdder()).add(uses.count()));
+            log.warn("Could not flush usage of {} prompts: {}", batch.size(), e.getMessage());
+            return;
+        }
+
+        if (prunedBefore == null || prunedBefore.isBefore(hour)) {
+            try {
+                jdbcTemplate.update("DELETE FROM prompt_usage_hours WHERE hour_start < ?",
+                        Timestamp.valueOf(hour.minusHours(MAX_TRENDING_HOURS)));
+                prunedBefore = hour;
+            } catch (RuntimeException e) {
+                log.warn("Could not prune trending buckets, retrying on the next flush: {}", e.getMessage());
+            }
+        }
+    }
+
+    private void write(List<Uses> batch, LocalDateTime hour) {
+        // Prompts deleted since their use simply match no row
+        jdbcTemplate.batchUpdate("UPDATE prompts SET usage_count = usage_count + ? WHERE id = ?",
+                batch, batch.size(), (ps, uses) -> {
+                    ps.setLong(1, uses.count());
+                    ps.setObject(2, uses.promptId());
+                });
+        Timestamp hourStart = Timestamp.valueOf(hour);
+        jdbcTemplate.batchUpdate("INSERT INTO prompt_usage_hours (prompt_id, hour_start, uses) VALUES (?, ?, ?) " +
+                        "ON CONFLICT (prompt_id, hour_start) DO UPDATE SET uses = prompt_usage_hours.uses + EXCLUDED.uses",
+                batch, batch.size(), (ps, uses) -> {
+                    ps.setObject(1, uses.promptId());
+                    ps.setTimestamp(2, hourStart);
+                    ps.setLong(3, uses.count());
+                });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        flusher.shutdown();
+        try {
+            if (flusher.awaitTermination(10, TimeUnit.SECONDS)) {
+                flush();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
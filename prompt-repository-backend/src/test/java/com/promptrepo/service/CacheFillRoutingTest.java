@@ -0,0 +1,89 @@
+package com.promptrepo.service;
+
+import com.promptrepo.config.ReplicaRoutingDataSource;
+import com.promptrepo.event.ChangeType;
+import com.promptrepo.event.PromptChangedEvent;
+import com.promptrepo.model.Prompt;
+import com.promptrepo.repository.CategoryRepository;
+import com.promptrepo.repository.PromptChangeRepository;
+import com.promptrepo.repository.PromptRepository;
+import com.promptrepo.repository.PromptUsageHourRepository;
+import com.promptrepo.search.PromptSearchIndex;
+import com.promptrepo.search.VectorIndex;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * An entry evicted after a write must be refilled from the primary, not from a replica that has not
+ * caught up with the write yet. The repository mocks answer according to where the read would be routed.
+ */
+class CacheFillRoutingTest {
+    
+    private static final String ID = "0190a3b4-1c2d-7e3f-8a9b-0c1d2e3f4a5b";
+    
+    private final PromptRepository promptRepository = mock(PromptRepository.class);
+    private String primaryContent = "v1";
+    private String replicaContent = "v1";
+    
+    @BeforeEach
+    void setUp() {
+        when(promptRepository.findWithVariablesById(any())).thenAnswer(invocation -> Optional.of(routedPrompt()));
+        when(promptRepository.findById(any())).thenAnswer(invocation -> Optional.of(routedPrompt()));
+        // As inside a @Transactional(readOnly = true) method, which the router sends to the replica
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+    }
+    
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+    }
+    
+    @Test
+    void templateReloadedAfterEvictionReadsThePrimary() {
+        PromptRenderService renderService = new PromptRenderService(promptRepository);
+        assertThat(renderService.renderPrompt(ID, Map.of()).getContent()).isEqualTo("v1");
+        
+        // Committed on the primary, not yet replicated
+        primaryContent = "v2";
+        renderService.onPromptChanged(new PromptChangedEvent(ChangeType.UPDATED, ID, "title", null, "v2",
+                Set.of(), Set.of()));
+        
+        assertThat(renderService.renderPrompt(ID, Map.of()).getContent()).isEqualTo("v2");
+        assertThat(renderService.renderPrompt(ID, Map.of()).getContent()).isEqualTo("v2");
+        assertThat(ReplicaRoutingDataSource.currentRoute()).isEqualTo(ReplicaRoutingDataSource.Route.REPLICA);
+    }
+    
+    @Test
+    void cachedPromptLoadReadsThePrimary() {
+        PromptService promptService = new PromptService(promptRepository, mock(CategoryRepository.class),
+                mock(PromptChangeRepository.class), mock(PromptUsageHourRepository.class),
+                mock(PromptSearchIndex.class), mock(VectorIndex.class), mock(ApplicationEventPublisher.class));
+        primaryContent = "v2";
+        
+        assertThat(promptService.getPromptById(ID).getContent()).isEqualTo("v2");
+        assertThat(ReplicaRoutingDataSource.currentRoute()).isEqualTo(ReplicaRoutingDataSource.Route.REPLICA);
+    }
+    
+    private Prompt routedPrompt() {
+        boolean replica = ReplicaRoutingDataSource.currentRoute() == ReplicaRoutingDataSource.Route.REPLICA;
+        Prompt prompt = Prompt.builder()
+                .title("title")
+                .content(replica ? replicaContent : primaryContent)
+                .build();
+        prompt.setId(UUID.fromString(ID));
+        return prompt;
+    }
+}
@@ -0,0 +1,48 @@
+package com.promptrepo.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+import java.net.ConnectException;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Only failures to reach the database switch to the snapshot; a pool with no free connection does not.
+ */
+class DatabaseAvailabilityTest {
+    
+    @Test
+    void exhaustedPoolIsNotAnOutage() {
+        // What Hikari throws when every connection is in use and none was failing to connect
+        SQLTransientConnectionException timeout = new SQLTransientConnectionException(
+                "primary - Connection is not available, request timed out after 30000ms.");
+        
+        assertThat(DatabaseAvailability.isConnectivityFailure(
+                new CannotCreateTransactionException("Could not open JPA EntityManager for transaction", timeout)))
+                .isFalse();
+    }
+    
+    @Test
+    void refusedConnectionIsAnOutage() {
+        // Hikari copies the SQLState of its last failed attempt and keeps that attempt as the cause
+        SQLException refused = new SQLException("Connection to localhost:5432 refused.", "08001",
+                new ConnectException("Connection refused"));
+        SQLTransientConnectionException timeout = new SQLTransientConnectionException(
+                "primary - Connection is not available, request timed out after 30000ms.", "08001", refused);
+        
+        assertThat(DatabaseAvailability.isConnectivityFailure(
+                new CannotCreateTransactionException("Could not open JPA EntityManager for transaction", timeout)))
+                .isTrue();
+    }
+    
+    @Test
+    void droppedConnectionIsAnOutage() {
+        assertThat(DatabaseAvailability.isConnectivityFailure(new DataAccessResourceFailureException(
+                "I/O error", new SQLException("An I/O error occurred while sending to the backend.", "08006"))))
+                .isTrue();
+    }
+}
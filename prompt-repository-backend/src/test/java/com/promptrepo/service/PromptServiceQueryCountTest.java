@@ -0,0 +1,110 @@
+package com.promptrepo.service;
+
+import com.promptrepo.dto.PromptDto;
+import com.promptrepo.model.Category;
+import com.promptrepo.model.Prompt;
+import com.promptrepo.model.PromptVariable;
+import com.promptrepo.repository.CategoryRepository;
+import com.promptrepo.repository.PromptRepository;
+import com.promptrepo.search.PromptSearchIndex;
+import com.promptrepo.search.VectorIndex;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * A page of prompts, with categories, tags and variables, must load in the same number of statements
+ * whatever its size, up to {@link PromptService#MAX_BATCH_SIZE}.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true"})
+@Import(PromptService.class)
+class PromptServiceQueryCountTest {
+    
+    @Autowired
+    private PromptService promptService;
+    
+    @Autowired
+    private PromptRepository promptRepository;
+    
+    @Autowired
+    private CategoryRepository categoryRepository;
+    
+    @Autowired
+    private EntityManager entityManager;
+    
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    
+    @MockBean
+    private PromptSearchIndex searchIndex;
+    
+    @MockBean
+    private VectorIndex vectorIndex;
+    
+    @BeforeEach
+    void createPrompts() {
+        List<Category> categories = categoryRepository.saveAll(IntStream.range(0, 3)
+                .mapToObj(i -> Category.builder().name("category-" + i).build())
+                .collect(Collectors.toList()));
+        for (int i = 0; i <= PromptService.MAX_BATCH_SIZE; i++) {
+            Prompt prompt = Prompt.builder()
+                    .title("Prompt " + i)
+                    .content("Hello {{name}}, " + i)
+                    .categories(new HashSet<>(Set.of(categories.get(i % 3), categories.get((i + 1) % 3))))
+                    .tags(new HashSet<>(Set.of("tone-" + i % 5, "topic-" + i % 7)))
+                    .build();
+            prompt.getVariables().add(PromptVariable.builder()
+                    .name("name")
+                    .type(PromptVariable.VariableType.TEXT)
+                    .required(true)
+                    .prompt(prompt)
+                    .build());
+            promptRepository.save(prompt);
+        }
+        entityManager.flush();
+    }
+    
+    @Test
+    void pageStatementCountDoesNotDependOnPageSize() {
+        long single = statementsToLoad(1);
+        long full = statementsToLoad(PromptService.MAX_BATCH_SIZE);
+        
+        assertThat(full).isEqualTo(single);
+    }
+    
+    private long statementsToLoad(int size) {
+        entityManager.clear();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        
+        Page<PromptDto> page = promptService.getAllPrompts(PageRequest.of(0, size, Sort.by("createdAt")));
+        
+        assertThat(page.getContent()).hasSize(size);
+        assertThat(page.getContent()).allSatisfy(prompt -> {
+            assertThat(prompt.getCategories()).hasSize(2);
+            assertThat(prompt.getVariables()).hasSize(1);
+            assertThat(prompt.getTags()).isNotEmpty();
+        });
+        return statistics.getPrepareStatementCount();
+    }
+}